@@ -0,0 +1,55 @@
+#!/bin/bash
+#
+# Builds the JMH module, runs the benchmarks and compares them against baseline/baseline.json.
+#
+#   ./run-benchmarks.sh                       # run everything, fail on >10% regression
+#   ./run-benchmarks.sh SingleFlight          # any JMH include regex / options are passed through
+#   THRESHOLD=5 ./run-benchmarks.sh
+#   ./run-benchmarks.sh --update-baseline     # run and record the results as the new baseline
+#   ./run-benchmarks.sh --allocation-gate     # only check the cache hit path's bytes/op (ALLOC_BUDGET=64)
+#
+
+set -e
+cd "$(dirname "$0")"
+
+THRESHOLD=${THRESHOLD:-10}
+BASELINE=baseline/baseline.json
+RESULTS=target/jmh-result.json
+
+UPDATE_BASELINE=false
+if [ "$1" == "--update-baseline" ]; then
+    UPDATE_BASELINE=true
+    shift
+fi
+
+echo "🔨 Building benchmarks..."
+mvn -B -q clean package
+
+if [ "$1" == "--allocation-gate" ]; then
+    echo "🧮 Checking hit path allocation..."
+    java -cp target/benchmarks.jar co.in.thunderingherd.jmh.AllocationGate "${ALLOC_BUDGET:-64}"
+    exit $?
+fi
+
+if [ "$UPDATE_BASELINE" != "true" ] && { [ ! -f "$BASELINE" ] || [ "$(tr -d '[:space:]' < "$BASELINE")" == "[]" ]; }; then
+    echo "No baseline recorded in $BASELINE; record one on the reference machine with --update-baseline" >&2
+    exit 2
+fi
+
+echo "⏱  Running benchmarks..."
+java -jar target/benchmarks.jar -rf json -rff "$RESULTS" "$@"
+
+if [ "$UPDATE_BASELINE" == "true" ]; then
+    cp "$RESULTS" "$BASELINE"
+    echo "✓ Baseline updated: $BASELINE"
+    exit 0
+fi
+
+echo ""
+echo "📊 Comparing against $BASELINE (threshold ${THRESHOLD}%)..."
+# A filtered run only covers part of the baseline, so only a full run fails on missing benchmarks
+ALLOW_MISSING=""
+if [ $# -gt 0 ]; then
+    ALLOW_MISSING="--allow-missing"
+fi
+java -cp target/benchmarks.jar co.in.thunderingherd.jmh.BaselineComparator "$BASELINE" "$RESULTS" "$THRESHOLD" $ALLOW_MISSING
@@ -0,0 +1,142 @@
+package co.in.thunderingherd.cache;
+
+import co.in.thunderingherd.config.RedisConfig;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.CacheMetrics;
+import co.in.thunderingherd.core.CacheTimers;
+import co.in.thunderingherd.core.CacheWriteBehind;
+import co.in.thunderingherd.core.LoaderRetry;
+import co.in.thunderingherd.core.LocalCacheTier;
+import co.in.thunderingherd.core.NamespaceGenerations;
+import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.core.TagIndex;
+import co.in.thunderingherd.core.ThunderingHerdCacheManager;
+import co.in.thunderingherd.jmh.InMemoryRedisConnectionFactory;
+import co.in.thunderingherd.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Spring Cache adapter against stock RedisCacheManager, both over the in-memory Redis
+ * stand-in with the same JSON value serializer. The sync variants are what
+ * {@code @Cacheable(sync = true)} calls; the miss variants evict first, so they include
+ * one DEL on both sides.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpringCacheBenchmark {
+
+    // Long enough that early refresh never fires during a trial and the hit path stays a pure hit
+    private static final long TTL_SECONDS = 86_400;
+    private static final String KEY = "BENCH-001";
+    private static final String MISS_KEY = "BENCH-MISS";
+
+    private Cache herdCache;
+    private Cache redisCache;
+    private Callable<Product> loader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisConnectionFactory connectionFactory = new InMemoryRedisConnectionFactory().connectionFactory();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TagIndex tagIndex = new TagIndex(redisTemplate, properties);
+        ThunderingHerdCacheManager cacheManager = new ThunderingHerdCacheManager(redisTemplate, new SingleFlight(),
+                properties, new CacheMetrics(registry), new CacheTimers(registry), new LocalCacheTier(properties),
+                new LoaderRetry(properties, registry),
+                new CacheWriteBehind(redisTemplate, new CacheTimers(registry), tagIndex, properties, registry),
+                new NamespaceGenerations(redisTemplate, properties),
+                tagIndex);
+        herdCache = new ThunderingHerdCache("herd", cacheManager, TTL_SECONDS);
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofSeconds(TTL_SECONDS))
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.json())))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        redisCache = redisCacheManager.getCache("redis");
+
+        Product product = sampleProduct();
+        loader = () -> product;
+        herdCache.get(KEY, loader);
+        redisCache.get(KEY, loader);
+    }
+
+    @Benchmark
+    public Product herdSyncHit() {
+        return herdCache.get(KEY, loader);
+    }
+
+    @Benchmark
+    public Product redisSyncHit() {
+        return redisCache.get(KEY, loader);
+    }
+
+    @Benchmark
+    public Cache.ValueWrapper herdGetHit() {
+        return herdCache.get(KEY);
+    }
+
+    @Benchmark
+    public Cache.ValueWrapper redisGetHit() {
+        return redisCache.get(KEY);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Product herdSyncHit64Threads() {
+        return herdCache.get(KEY, loader);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Product redisSyncHit64Threads() {
+        return redisCache.get(KEY, loader);
+    }
+
+    /** GET then SET for the adapter; RedisCache re-reads under its lock first, so GET, GET, SET. */
+    @Benchmark
+    public Product herdSyncMiss() {
+        herdCache.evict(MISS_KEY);
+        return herdCache.get(MISS_KEY, loader);
+    }
+
+    @Benchmark
+    public Product redisSyncMiss() {
+        redisCache.evict(MISS_KEY);
+        return redisCache.get(MISS_KEY, loader);
+    }
+
+    static Product sampleProduct() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setSku("BENCH-001");
+        product.setName("Benchmark Headphones");
+        product.setDescription("High-quality wireless headphones");
+        product.setPrice(new BigDecimal("299.99"));
+        product.setInventory(100);
+        product.setCreatedAt(Instant.now());
+        product.setUpdatedAt(Instant.now());
+        return product;
+    }
+}
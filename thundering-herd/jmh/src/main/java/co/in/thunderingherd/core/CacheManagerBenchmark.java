@@ -0,0 +1,128 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.RedisConfig;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.jmh.InMemoryRedisConnectionFactory;
+import co.in.thunderingherd.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ThunderingHerdCacheManager hit path against the in-memory Redis stand-in,
+ * plus the TTL jitter and probabilistic early-refresh helpers it calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheManagerBenchmark {
+
+    // Long enough that early refresh never fires during a trial and the hit path stays a pure hit
+    private static final long TTL_SECONDS = 86_400;
+    private static final String KEY = "product:BENCH-001";
+    private static final String RENDERED_KEY = "product-json:BENCH-001";
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ThunderingHerdCacheManager cacheManager;
+    private Supplier<Product> loader;
+    private Function<Product, byte[]> renderer;
+    private CachedItem<Product> freshItem;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(redis.connectionFactory());
+
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TagIndex tagIndex = new TagIndex(redisTemplate, properties);
+        cacheManager = new ThunderingHerdCacheManager(redisTemplate, new SingleFlight(), properties,
+                new CacheMetrics(registry), new CacheTimers(registry), new LocalCacheTier(properties),
+                new LoaderRetry(properties, registry),
+                new CacheWriteBehind(redisTemplate, new CacheTimers(registry), tagIndex, properties, registry),
+                new NamespaceGenerations(redisTemplate, properties),
+                tagIndex);
+
+        Product product = sampleProduct();
+        loader = () -> product;
+        freshItem = new CachedItem<>(product, System.currentTimeMillis());
+
+        renderer = p -> {
+            try {
+                return MAPPER.writeValueAsBytes(p);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        cacheManager.get(KEY, loader, TTL_SECONDS);
+        cacheManager.getRendered(RENDERED_KEY, loader, renderer, TTL_SECONDS);
+    }
+
+    @Benchmark
+    public Product getHit() throws Exception {
+        return cacheManager.get(KEY, loader, TTL_SECONDS);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Product getHit64Threads() throws Exception {
+        return cacheManager.get(KEY, loader, TTL_SECONDS);
+    }
+
+    /**
+     * Entity hit followed by the re-serialization the MVC converter would do, against the
+     * pre-rendered hit that only parses the envelope header.
+     */
+    @Benchmark
+    public byte[] getHitAndRender() throws Exception {
+        return MAPPER.writeValueAsBytes(cacheManager.get(KEY, loader, TTL_SECONDS));
+    }
+
+    @Benchmark
+    public RenderedBody getRenderedHit() throws Exception {
+        return cacheManager.getRendered(RENDERED_KEY, loader, renderer, TTL_SECONDS);
+    }
+
+    @Benchmark
+    public String getRenderedEtag() {
+        return cacheManager.getRenderedEtag(RENDERED_KEY);
+    }
+
+    @Benchmark
+    public long addJitter() {
+        return cacheManager.addJitter(TTL_SECONDS);
+    }
+
+    @Benchmark
+    public boolean shouldRefreshEarly() {
+        return cacheManager.shouldRefreshEarly(freshItem, TTL_SECONDS);
+    }
+
+    static Product sampleProduct() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setSku("BENCH-001");
+        product.setName("Benchmark Headphones");
+        product.setDescription("High-quality wireless headphones");
+        product.setPrice(new BigDecimal("299.99"));
+        product.setInventory(100);
+        product.setCreatedAt(Instant.now());
+        product.setUpdatedAt(Instant.now());
+        return product;
+    }
+}
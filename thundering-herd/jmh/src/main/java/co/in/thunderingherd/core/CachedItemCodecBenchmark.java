@@ -0,0 +1,40 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip cost of CachedItem through the value serializer configured in RedisConfig.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachedItemCodecBenchmark {
+
+    private RedisSerializer<Object> serializer;
+    private CachedItem<Product> item;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = RedisSerializer.json();
+        item = new CachedItem<>(CacheManagerBenchmark.sampleProduct(), System.currentTimeMillis());
+        encoded = serializer.serialize(item);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(item);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+}
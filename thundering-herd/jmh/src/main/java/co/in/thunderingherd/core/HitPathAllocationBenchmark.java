@@ -0,0 +1,106 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.cache.HerdCacheInterceptor;
+import co.in.thunderingherd.cache.HerdCacheable;
+import co.in.thunderingherd.config.RedisConfig;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.jmh.InMemoryRedisConnectionFactory;
+import co.in.thunderingherd.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bytes allocated per cache hit, meant to be run with {@code -prof gc} (see
+ * {@link co.in.thunderingherd.jmh.AllocationGate}). {@code redisGet} and {@code decode}
+ * measure the two allocations a hit cannot avoid - the GET reply and the decoded value -
+ * so {@code getHit} should cost no more than their sum. {@code herdCacheableHit} is the same
+ * hit through {@link HerdCacheable}, which also copies the invocation for the loader; it is
+ * reported but not gated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HitPathAllocationBenchmark {
+
+    private static final long TTL_SECONDS = 86_400;
+    private static final CacheKey KEY = CacheKey.of("product:", "BENCH-001");
+    private static final byte[] RAW_KEY = KEY.name().getBytes(StandardCharsets.UTF_8);
+    private static final Function<String, Product> LOADER = sku -> CacheManagerBenchmark.sampleProduct();
+
+    private ThunderingHerdCacheManager cacheManager;
+    private Catalog catalog;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisSerializer<Object> valueSerializer;
+    private byte[] raw;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        redisTemplate = new RedisConfig().redisTemplate(redis.connectionFactory());
+        valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TagIndex tagIndex = new TagIndex(redisTemplate, properties);
+        cacheManager = new ThunderingHerdCacheManager(redisTemplate, new SingleFlight(), properties,
+                new CacheMetrics(registry), new CacheTimers(registry), new LocalCacheTier(properties),
+                new LoaderRetry(properties, registry),
+                new CacheWriteBehind(redisTemplate, new CacheTimers(registry), tagIndex, properties, registry),
+                new NamespaceGenerations(redisTemplate, properties),
+                tagIndex);
+
+        cacheManager.get(KEY, LOADER, "BENCH-001", TTL_SECONDS, ThunderingHerdCacheManager.LookupPolicy.DEFAULT);
+        raw = redisGet();
+
+        ProxyFactory proxyFactory = new ProxyFactory(new Catalog());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new HerdCacheInterceptor(() -> cacheManager, () -> properties));
+        catalog = (Catalog) proxyFactory.getProxy();
+        catalog.find("BENCH-001");
+    }
+
+    @Benchmark
+    public Product getHit() throws Exception {
+        return cacheManager.get(KEY, LOADER, "BENCH-001", TTL_SECONDS, ThunderingHerdCacheManager.LookupPolicy.DEFAULT);
+    }
+
+    @Benchmark
+    public Product herdCacheableHit() {
+        return catalog.find("BENCH-001");
+    }
+
+    @Benchmark
+    public byte[] redisGet() {
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> get(connection));
+    }
+
+    @Benchmark
+    public Object decode() {
+        return valueSerializer.deserialize(raw);
+    }
+
+    private static byte[] get(RedisConnection connection) {
+        return connection.stringCommands().get(RAW_KEY);
+    }
+
+    public static class Catalog {
+
+        @HerdCacheable(namespace = "product", key = "#p0", ttl = TTL_SECONDS)
+        public Product find(String sku) {
+            return CacheManagerBenchmark.sampleProduct();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.RedisConfig;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.jmh.InMemoryRedisConnectionFactory;
+import co.in.thunderingherd.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Id lookups on the primitive-keyed path (LongKeyedCache, LongSingleFlight) against the
+ * String-keyed equivalents, which build "product-id:" + id on every call. Ids are drawn
+ * from a small warmed range so every cache lookup is a hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdKeyedCacheBenchmark {
+
+    private static final long TTL_SECONDS = 86_400;
+    private static final int IDS = 1024;
+    private static final String PREFIX = "product-id:";
+    private static final Product PRODUCT = CacheManagerBenchmark.sampleProduct();
+    private static final LongFunction<Product> LONG_LOADER = id -> PRODUCT;
+    private static final Supplier<Product> LOADER = () -> PRODUCT;
+
+    private LongKeyedCache<Product> idCache;
+    private ConcurrentHashMap<String, Product> stringMap;
+    private ThunderingHerdCacheManager cacheManager;
+    private LongSingleFlight longSingleFlight;
+    private SingleFlight singleFlight;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        idCache = new LongKeyedCache<>(LONG_LOADER, 100_000, TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1));
+        stringMap = new ConcurrentHashMap<>();
+
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(redis.connectionFactory());
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TagIndex tagIndex = new TagIndex(redisTemplate, properties);
+        cacheManager = new ThunderingHerdCacheManager(redisTemplate, new SingleFlight(), properties,
+                new CacheMetrics(registry), new CacheTimers(registry), new LocalCacheTier(properties),
+                new LoaderRetry(properties, registry),
+                new CacheWriteBehind(redisTemplate, new CacheTimers(registry), tagIndex, properties, registry),
+                new NamespaceGenerations(redisTemplate, properties),
+                tagIndex);
+
+        for (long id = 0; id < IDS; id++) {
+            idCache.get(id);
+            stringMap.put(PREFIX + id, PRODUCT);
+            cacheManager.get(PREFIX + id, LOADER, TTL_SECONDS);
+        }
+        longSingleFlight = new LongSingleFlight();
+        singleFlight = new SingleFlight();
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        long next;
+
+        long id() {
+            return next++ & (IDS - 1);
+        }
+    }
+
+    @Benchmark
+    public Product longKeyedHit(Ids ids) throws Exception {
+        return idCache.get(ids.id());
+    }
+
+    @Benchmark
+    public Product stringKeyedMapHit(Ids ids) {
+        return stringMap.get(PREFIX + ids.id());
+    }
+
+    @Benchmark
+    public Product stringKeyedRedisHit(Ids ids) throws Exception {
+        return cacheManager.get(PREFIX + ids.id(), LOADER, TTL_SECONDS);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Product longKeyedHit8Threads(Ids ids) throws Exception {
+        return idCache.get(ids.id());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Product stringKeyedMapHit8Threads(Ids ids) {
+        return stringMap.get(PREFIX + ids.id());
+    }
+
+    @Benchmark
+    public Product longSingleFlight(Ids ids) throws Exception {
+        return longSingleFlight.execute(ids.id(), LONG_LOADER);
+    }
+
+    @Benchmark
+    public Product stringSingleFlight(Ids ids) throws Exception {
+        return singleFlight.execute(PREFIX + ids.id(), LOADER);
+    }
+}
@@ -0,0 +1,114 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local tier holding 1M products: OffHeapStore against on-heap maps of the same
+ * serialized bytes and of decoded CachedItems. Throughput covers reads (decoded and raw)
+ * and overwrites; fullGc times a System.gc() with the store resident, which is what a
+ * full collection costs with that much live data. Run with {@code -prof gc} to compare
+ * allocation and young collections as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:MaxDirectMemorySize=2g"})
+@State(Scope.Benchmark)
+public class LocalStoreBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+    private static final long TTL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    public enum StoreType { OFF_HEAP, ON_HEAP_BYTES, ON_HEAP_OBJECTS }
+
+    @Param({"OFF_HEAP", "ON_HEAP_BYTES", "ON_HEAP_OBJECTS"})
+    public StoreType storeType;
+
+    private RedisSerializer<Object> serializer;
+    private OffHeapStore offHeap;
+    private Map<String, Object> onHeap;
+    private String[] keys;
+    private byte[] replacement;
+    private CachedItem<Product> replacementItem;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = RedisSerializer.json();
+        keys = new String[ENTRIES];
+        if (storeType == StoreType.OFF_HEAP) {
+            offHeap = new OffHeapStore(1L << 30, ENTRIES, 16);
+        } else {
+            onHeap = new ConcurrentHashMap<>(ENTRIES * 2);
+        }
+
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = "product:BENCH-" + i;
+            CachedItem<Product> item = new CachedItem<>(product(i), System.currentTimeMillis());
+            switch (storeType) {
+                case OFF_HEAP -> offHeap.put(keys[i], serializer.serialize(item), TTL_MILLIS);
+                case ON_HEAP_BYTES -> onHeap.put(keys[i], serializer.serialize(item));
+                case ON_HEAP_OBJECTS -> onHeap.put(keys[i], item);
+            }
+        }
+        replacementItem = new CachedItem<>(product(0), System.currentTimeMillis());
+        replacement = serializer.serialize(replacementItem);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object get() {
+        String key = randomKey();
+        return switch (storeType) {
+            case OFF_HEAP -> serializer.deserialize(offHeap.get(key));
+            case ON_HEAP_BYTES -> serializer.deserialize((byte[]) onHeap.get(key));
+            case ON_HEAP_OBJECTS -> onHeap.get(key);
+        };
+    }
+
+    /** Served as stored: bytes for the byte stores, the object for ON_HEAP_OBJECTS. */
+    @Benchmark
+    @Threads(8)
+    public Object getRaw() {
+        String key = randomKey();
+        return storeType == StoreType.OFF_HEAP ? offHeap.get(key) : onHeap.get(key);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object put() {
+        String key = randomKey();
+        return switch (storeType) {
+            case OFF_HEAP -> offHeap.put(key, replacement, TTL_MILLIS);
+            case ON_HEAP_BYTES -> onHeap.put(key, replacement);
+            case ON_HEAP_OBJECTS -> onHeap.put(key, new CachedItem<>(replacementItem.getValue(), System.currentTimeMillis()));
+        };
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(ENTRIES)];
+    }
+
+    private static Product product(int i) {
+        Product product = CacheManagerBenchmark.sampleProduct();
+        product.setId((long) i);
+        product.setSku("BENCH-" + i);
+        return product;
+    }
+}
@@ -0,0 +1,92 @@
+package co.in.thunderingherd.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metric recording on the request path: building and registering a counter per call
+ * (the old ProductService pattern) versus pre-registered meters, and a single shared
+ * AtomicInteger (the old SingleFlight counters) versus the striped CacheMetrics at 64 threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private MeterRegistry registry;
+    private Counter counter;
+    private Timer timer;
+    private CacheMetrics cacheMetrics;
+    private final AtomicInteger sharedAtomic = new AtomicInteger();
+    private final LongAdder stripedAdder = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        counter = Counter.builder("cache.hits").register(registry);
+        timer = Timer.builder("db.query.duration").register(registry);
+        cacheMetrics = new CacheMetrics(registry);
+        cacheMetrics.record("product:warmup", CacheMetrics.Tier.REDIS_HIT);
+    }
+
+    @Benchmark
+    public void counterBuildPerCall() {
+        Counter.builder("cache.hits")
+                .description("Cache hit count")
+                .register(registry)
+                .increment();
+    }
+
+    @Benchmark
+    public void counterPreRegistered() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void counterPreRegistered8Threads() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void timerRecord() {
+        timer.record(100, TimeUnit.MICROSECONDS);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void counterBuildPerCall64Threads() {
+        Counter.builder("cache.hits")
+                .description("Cache hit count")
+                .register(registry)
+                .increment();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int sharedAtomicInteger64Threads() {
+        return sharedAtomic.incrementAndGet();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void stripedLongAdder64Threads() {
+        stripedAdder.increment();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void cacheMetricsRecord64Threads() {
+        cacheMetrics.record("product:BENCH-001", CacheMetrics.Tier.REDIS_HIT);
+    }
+}
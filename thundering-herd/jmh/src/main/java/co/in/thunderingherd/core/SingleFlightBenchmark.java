@@ -0,0 +1,119 @@
+package co.in.thunderingherd.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight.execute on the uncontended path (one caller per key),
+ * under contention (many callers racing for the same key), and with
+ * 8/32/128 threads spread over 1, 100 or 10k keys, which exercises
+ * the key registry's claim and release.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingleFlightBenchmark {
+
+    private static final Supplier<String> CONSTANT = () -> "value";
+
+    private static final Supplier<String> BUSY = () -> {
+        Blackhole.consumeCPU(1_000);
+        return "value";
+    };
+
+    private SingleFlight singleFlight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        singleFlight = new SingleFlight();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        String key;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            key = "bench:thread:" + params.getThreadIndex();
+        }
+    }
+
+    @Benchmark
+    public String uncontended() throws Exception {
+        return singleFlight.execute("bench:uncontended", CONSTANT);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String distinctKeys8Threads(ThreadKey threadKey) throws Exception {
+        return singleFlight.execute(threadKey.key, CONSTANT);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String hotKey8Threads() throws Exception {
+        return singleFlight.execute("bench:hot", BUSY);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String hotKey32Threads() throws Exception {
+        return singleFlight.execute("bench:hot", BUSY);
+    }
+
+    @State(Scope.Benchmark)
+    public static class KeySpace {
+        @Param({"1", "100", "10000"})
+        int keyCount;
+
+        String[] keys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            keys = new String[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = "bench:space:" + i;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            next = params.getThreadIndex() * 7919;
+        }
+
+        String key(KeySpace space) {
+            next = (next + 1) % space.keys.length;
+            return space.keys[next];
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String keySpace8Threads(KeySpace space, Cursor cursor) throws Exception {
+        return singleFlight.execute(cursor.key(space), CONSTANT);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String keySpace32Threads(KeySpace space, Cursor cursor) throws Exception {
+        return singleFlight.execute(cursor.key(space), CONSTANT);
+    }
+
+    @Benchmark
+    @Threads(128)
+    public String keySpace128Threads(KeySpace space, Cursor cursor) throws Exception {
+        return singleFlight.execute(cursor.key(space), CONSTANT);
+    }
+}
@@ -0,0 +1,122 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.RedisConfig;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.jmh.InMemoryRedisConnectionFactory;
+import co.in.thunderingherd.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Invalidating 10k tagged entries while reader threads keep looking up tagged and untagged
+ * keys (reloading, and re-tagging, whatever was just dropped): one invalidateTag call
+ * against a loop of single-key invalidate calls. Each iteration re-populates the entries
+ * and times one invalidation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TagInvalidationBenchmark {
+
+    private static final int TAGGED_KEYS = 10_000;
+    private static final int UNTAGGED_KEYS = 10_000;
+    private static final int READERS = 4;
+    private static final long TTL_SECONDS = 3600;
+    private static final String TAG = "category:shoes";
+    private static final Product PRODUCT = CacheManagerBenchmark.sampleProduct();
+    private static final Supplier<Product> LOADER = () -> PRODUCT;
+    private static final ThunderingHerdCacheManager.LookupPolicy TAGGED =
+            ThunderingHerdCacheManager.LookupPolicy.DEFAULT.withTags(TAG);
+
+    public enum Strategy { TAG, PER_KEY }
+
+    @Param({"TAG", "PER_KEY"})
+    public Strategy strategy;
+
+    private ThunderingHerdCacheManager cacheManager;
+    private final List<String> taggedKeys = new ArrayList<>(TAGGED_KEYS);
+    private final List<Thread> readers = new ArrayList<>(READERS);
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(redis.connectionFactory());
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TagIndex tagIndex = new TagIndex(redisTemplate, properties);
+        cacheManager = new ThunderingHerdCacheManager(redisTemplate, new SingleFlight(), properties,
+                new CacheMetrics(registry), new CacheTimers(registry), new LocalCacheTier(properties),
+                new LoaderRetry(properties, registry),
+                new CacheWriteBehind(redisTemplate, new CacheTimers(registry), tagIndex, properties, registry),
+                new NamespaceGenerations(redisTemplate, properties),
+                tagIndex);
+
+        for (int i = 0; i < TAGGED_KEYS; i++) {
+            taggedKeys.add("product:" + i);
+        }
+        for (int i = 0; i < UNTAGGED_KEYS; i++) {
+            cacheManager.put("page:" + i, PRODUCT, TTL_SECONDS);
+        }
+
+        running = true;
+        for (int i = 0; i < READERS; i++) {
+            Thread reader = new Thread(this::read, "tag-benchmark-reader-" + i);
+            reader.setDaemon(true);
+            reader.start();
+            readers.add(reader);
+        }
+    }
+
+    private void read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            try {
+                if (random.nextBoolean()) {
+                    cacheManager.get(taggedKeys.get(random.nextInt(TAGGED_KEYS)), LOADER, TTL_SECONDS, TAGGED);
+                } else {
+                    cacheManager.get("page:" + random.nextInt(UNTAGGED_KEYS), LOADER, TTL_SECONDS);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() {
+        for (String key : taggedKeys) {
+            cacheManager.put(key, PRODUCT, TTL_SECONDS, Set.of(TAG));
+        }
+    }
+
+    @Benchmark
+    public long invalidate() {
+        if (strategy == Strategy.TAG) {
+            return cacheManager.invalidateTag(TAG);
+        }
+        for (String key : taggedKeys) {
+            cacheManager.invalidate(key);
+        }
+        return taggedKeys.size();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        for (Thread reader : readers) {
+            reader.join();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package co.in.thunderingherd.jmh;
+
+import co.in.thunderingherd.core.HitPathAllocationBenchmark;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs {@link HitPathAllocationBenchmark} with the GC profiler and exits with status 1 when
+ * a cache hit allocates more than the Redis read and decode it is built on, plus a small
+ * budget in bytes for measurement noise.
+ *
+ * Usage: AllocationGate [budgetBytes]
+ */
+public final class AllocationGate {
+
+    private static final double DEFAULT_BUDGET_BYTES = 64;
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private AllocationGate() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        double budget = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_BUDGET_BYTES;
+        Options options = new OptionsBuilder()
+                .include(HitPathAllocationBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> bytesPerOp = new HashMap<>();
+        for (RunResult run : results) {
+            String benchmark = run.getParams().getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            for (Map.Entry<String, Result> secondary : run.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith(ALLOCATION)) {
+                    bytesPerOp.put(method, secondary.getValue().getScore());
+                }
+            }
+        }
+
+        Double hit = bytesPerOp.get("getHit");
+        Double redisGet = bytesPerOp.get("redisGet");
+        Double decode = bytesPerOp.get("decode");
+        if (hit == null || redisGet == null || decode == null) {
+            System.err.println("Missing " + ALLOCATION + " results: " + bytesPerOp);
+            System.exit(2);
+        }
+
+        double limit = redisGet + decode + budget;
+        System.out.printf("%nHit path: %.1f B/op (Redis read %.1f + decode %.1f + budget %.0f = limit %.1f)%n",
+                hit, redisGet, decode, budget, limit);
+        if (hit > limit) {
+            System.out.printf("Cache hit allocates %.1f B/op more than allowed%n", hit - limit);
+            System.exit(1);
+        }
+        System.out.println("Hit path allocation within budget");
+    }
+}
@@ -0,0 +1,125 @@
+package co.in.thunderingherd.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file against the committed baseline.
+ * Exits with status 1 when any benchmark regressed by more than the threshold,
+ * taking the benchmark mode into account (throughput: higher is better, time modes: lower is better),
+ * or when a baseline benchmark is missing from the results, since a renamed, deleted or
+ * crashed benchmark would otherwise pass silently. {@code --allow-missing} relaxes the latter
+ * for runs that only include a subset of the benchmarks. An empty or absent baseline is an
+ * error rather than a pass, since it would compare nothing.
+ *
+ * Usage: BaselineComparator &lt;baseline.json&gt; &lt;results.json&gt; [thresholdPercent] [--allow-missing]
+ */
+public final class BaselineComparator {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <results.json> [thresholdPercent] [--allow-missing]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        boolean allowMissing = args.length > 3 && "--allow-missing".equals(args[3]);
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Result> baseline = load(mapper, new File(args[0]));
+        Map<String, Result> current = load(mapper, new File(args[1]));
+        if (baseline.isEmpty()) {
+            System.err.println("No baseline recorded in " + args[0]
+                    + "; record one on the reference machine with ./run-benchmarks.sh --update-baseline");
+            System.exit(2);
+        }
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Delta");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  %s%n", entry.getKey(), "-", now.score, "-", "NEW");
+                continue;
+            }
+
+            double deltaPercent = (now.score - before.score) / before.score * 100.0;
+            double worsening = now.higherIsBetter() ? -deltaPercent : deltaPercent;
+            boolean regressed = worsening > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.2f%%  %s%n",
+                    entry.getKey(), before.score, now.score, deltaPercent,
+                    regressed ? "REGRESSION" : "ok");
+        }
+
+        int missing = 0;
+        for (Map.Entry<String, Result> entry : baseline.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                missing++;
+                System.out.printf("%-70s %14.3f %14s %9s  %s%n", entry.getKey(), entry.getValue().score, "-", "-",
+                        allowMissing ? "NOT RUN" : "MISSING");
+            }
+        }
+
+        boolean failed = false;
+        if (regressions > 0) {
+            System.out.printf("%n%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            failed = true;
+        }
+        if (missing > 0 && !allowMissing) {
+            System.out.printf("%n%d baseline benchmark(s) missing from the results%n", missing);
+            failed = true;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+        System.out.printf("%nNo regressions beyond %.1f%%%n", threshold);
+    }
+
+    private static Map<String, Result> load(ObjectMapper mapper, File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (!file.exists()) {
+            return results;
+        }
+        for (JsonNode run : mapper.readTree(file)) {
+            String mode = run.path("mode").asText();
+            String id = run.path("benchmark").asText() + params(run.path("params")) + " [" + mode + "]";
+            JsonNode metric = run.path("primaryMetric");
+            results.put(id, new Result(mode, metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private static String params(JsonNode params) {
+        if (params.isMissingNode() || params.isEmpty()) {
+            return "";
+        }
+        Map<String, String> sorted = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            sorted.put(field.getKey(), field.getValue().asText());
+        }
+        return sorted.toString();
+    }
+
+    private record Result(String mode, double score, String unit) {
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+}
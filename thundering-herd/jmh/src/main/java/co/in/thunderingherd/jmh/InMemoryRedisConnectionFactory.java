@@ -0,0 +1,311 @@
+package co.in.thunderingherd.jmh;
+
+import co.in.thunderingherd.core.TagIndex;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for a Redis server.
+ * Exposes a RedisConnectionFactory whose connections answer the string and key
+ * commands the cache manager issues, so a real RedisTemplate (with the production
+ * serializers) runs end-to-end without a container or network hop.
+ * There is no Lua: the {@link TagIndex} scripts are recognized and run natively, and
+ * their sets never expire. Loaded scripts can be called by SHA1 like on a real server.
+ */
+public final class InMemoryRedisConnectionFactory {
+
+    private final ConcurrentHashMap<ByteKey, Entry> store = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ByteKey, Set<ByteKey>> sets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> scripts = new ConcurrentHashMap<>();
+
+    public RedisConnectionFactory connectionFactory() {
+        return (RedisConnectionFactory) Proxy.newProxyInstance(
+                RedisConnectionFactory.class.getClassLoader(),
+                new Class<?>[]{RedisConnectionFactory.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getConnection" -> newConnection();
+                    case "getConvertPipelineAndTxResults" -> Boolean.TRUE;
+                    case "translateExceptionIfPossible" -> null;
+                    case "toString" -> "InMemoryRedisConnectionFactory";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public void clear() {
+        store.clear();
+        sets.clear();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    private RedisConnection newConnection() {
+        List<Class<?>> interfaces = new ArrayList<>();
+        interfaces.add(RedisConnection.class);
+        for (Class<?> candidate : RedisConnection.class.getInterfaces()) {
+            collectInterfaces(candidate, interfaces);
+        }
+        return (RedisConnection) Proxy.newProxyInstance(
+                RedisConnection.class.getClassLoader(),
+                interfaces.toArray(new Class<?>[0]),
+                new ConnectionHandler());
+    }
+
+    private static void collectInterfaces(Class<?> type, List<Class<?>> into) {
+        if (!into.contains(type)) {
+            into.add(type);
+        }
+        for (Class<?> parent : type.getInterfaces()) {
+            collectInterfaces(parent, into);
+        }
+    }
+
+    private Entry live(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        Entry entry = store.get(k);
+        if (entry != null && entry.isExpired()) {
+            store.remove(k, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private List<Object> pipeline;
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.endsWith("Commands") && method.getParameterCount() == 0) {
+                return proxy;
+            }
+            Object result = dispatch(proxy, method, name, args);
+            if (pipeline != null && isCommand(name)) {
+                pipeline.add(result);
+                return null;
+            }
+            return result;
+        }
+
+        private Object dispatch(Object proxy, Method method, String name, Object[] args) {
+            return switch (name) {
+                case "close" -> {
+                    closed = true;
+                    yield null;
+                }
+                case "isClosed" -> closed;
+                case "isQueueing", "isSubscribed" -> false;
+                case "isPipelined" -> pipeline != null;
+                case "openPipeline" -> {
+                    pipeline = new ArrayList<>();
+                    yield null;
+                }
+                case "closePipeline" -> {
+                    List<Object> results = pipeline == null ? List.of() : pipeline;
+                    pipeline = null;
+                    yield results;
+                }
+                case "getNativeConnection" -> this;
+                case "toString" -> "InMemoryRedisConnection";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+
+                case "get" -> {
+                    Entry entry = live((byte[]) args[0]);
+                    yield entry == null ? null : entry.value;
+                }
+                case "getRange" -> {
+                    Entry entry = live((byte[]) args[0]);
+                    if (entry == null) {
+                        yield new byte[0];
+                    }
+                    int from = (int) Math.min(((Number) args[1]).longValue(), entry.value.length);
+                    int to = (int) Math.min(((Number) args[2]).longValue() + 1, entry.value.length);
+                    yield Arrays.copyOfRange(entry.value, from, Math.max(from, to));
+                }
+                case "mGet" -> {
+                    byte[][] keys = (byte[][]) args[0];
+                    List<byte[]> values = new ArrayList<>(keys.length);
+                    for (byte[] key : keys) {
+                        Entry entry = live(key);
+                        values.add(entry == null ? null : entry.value);
+                    }
+                    yield values;
+                }
+                case "set" -> {
+                    long ttlMillis = args.length > 2 ? expirationMillis(args[2]) : -1;
+                    store.put(new ByteKey((byte[]) args[0]), new Entry((byte[]) args[1], ttlMillis));
+                    yield Boolean.TRUE;
+                }
+                case "setEx" -> {
+                    store.put(new ByteKey((byte[]) args[0]),
+                            new Entry((byte[]) args[2], ((Number) args[1]).longValue() * 1000));
+                    yield Boolean.TRUE;
+                }
+                case "pSetEx" -> {
+                    store.put(new ByteKey((byte[]) args[0]),
+                            new Entry((byte[]) args[2], ((Number) args[1]).longValue()));
+                    yield Boolean.TRUE;
+                }
+                case "del", "unlink" -> {
+                    long removed = 0;
+                    for (byte[] key : (byte[][]) args[0]) {
+                        if (store.remove(new ByteKey(key)) != null) {
+                            removed++;
+                        }
+                    }
+                    yield removed;
+                }
+                case "exists" -> {
+                    if (args[0] instanceof byte[] key) {
+                        yield live(key) != null;
+                    }
+                    long found = 0;
+                    for (byte[] key : (byte[][]) args[0]) {
+                        if (live(key) != null) {
+                            found++;
+                        }
+                    }
+                    yield found;
+                }
+                case "ttl", "pTtl" -> {
+                    Entry entry = live((byte[]) args[0]);
+                    if (entry == null) {
+                        yield -2L;
+                    }
+                    if (entry.expiresAtMillis < 0) {
+                        yield -1L;
+                    }
+                    long remaining = entry.expiresAtMillis - System.currentTimeMillis();
+                    yield name.equals("ttl") ? remaining / 1000 : remaining;
+                }
+                // No hashes are stored: every namespace stays at generation 0
+                case "hGetAll" -> Map.of();
+                case "sMembers" -> {
+                    Set<byte[]> members = new LinkedHashSet<>();
+                    sets.getOrDefault(new ByteKey((byte[]) args[0]), Set.of()).forEach(member -> members.add(member.bytes));
+                    yield members;
+                }
+                case "eval" -> eval(new String((byte[]) args[0], StandardCharsets.UTF_8), (Integer) args[2],
+                        (byte[][]) args[3]);
+                case "scriptLoad" -> {
+                    String script = new String((byte[]) args[0], StandardCharsets.UTF_8);
+                    String sha = RedisScript.of(script).getSha1();
+                    scripts.put(sha, script);
+                    yield sha;
+                }
+                case "evalSha" -> {
+                    String sha = args[0] instanceof byte[] bytes ? new String(bytes, StandardCharsets.US_ASCII)
+                            : (String) args[0];
+                    String script = scripts.get(sha);
+                    if (script == null) {
+                        throw new RedisSystemException(
+                                "NOSCRIPT No matching script. Please use EVAL.", null);
+                    }
+                    yield eval(script, (Integer) args[2], (byte[][]) args[3]);
+                }
+                case "scriptFlush" -> {
+                    scripts.clear();
+                    yield null;
+                }
+                case "flushAll", "flushDb" -> {
+                    store.clear();
+                    sets.clear();
+                    yield null;
+                }
+                default -> throw new UnsupportedOperationException("In-memory Redis does not support " + name);
+            };
+        }
+
+        private Object eval(String script, int numKeys, byte[][] keysAndArgs) {
+            if (script.equals(TagIndex.TAG_SCRIPT)) {
+                ByteKey member = new ByteKey(keysAndArgs[numKeys]);
+                for (int i = 0; i < numKeys; i++) {
+                    sets.computeIfAbsent(new ByteKey(keysAndArgs[i]), key -> ConcurrentHashMap.newKeySet()).add(member);
+                }
+                return (long) numKeys;
+            }
+            if (script.equals(TagIndex.INVALIDATE_SCRIPT)) {
+                Set<ByteKey> set = sets.getOrDefault(new ByteKey(keysAndArgs[0]), Set.of());
+                int count = Integer.parseInt(new String(keysAndArgs[1], StandardCharsets.US_ASCII));
+                List<byte[]> popped = new ArrayList<>(count);
+                synchronized (set) {
+                    for (Iterator<ByteKey> it = set.iterator(); it.hasNext() && popped.size() < count; ) {
+                        ByteKey member = it.next();
+                        it.remove();
+                        store.remove(member);
+                        popped.add(member.bytes);
+                    }
+                }
+                return popped;
+            }
+            throw new UnsupportedOperationException("In-memory Redis cannot run scripts");
+        }
+
+        private boolean isCommand(String name) {
+            return !name.equals("closePipeline") && !name.equals("openPipeline")
+                    && !name.equals("isPipelined") && !name.equals("close") && !name.equals("isClosed");
+        }
+
+        private long expirationMillis(Object expiration) {
+            if (expiration instanceof org.springframework.data.redis.core.types.Expiration e && !e.isPersistent()) {
+                return e.getExpirationTimeInMilliseconds();
+            }
+            return -1;
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAtMillis;
+
+        Entry(byte[] value, long ttlMillis) {
+            this.value = value;
+            this.expiresAtMillis = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : -1;
+        }
+
+        boolean isExpired() {
+            return expiresAtMillis >= 0 && System.currentTimeMillis() >= expiresAtMillis;
+        }
+    }
+
+    private static final class ByteKey {
+        private final byte[] bytes;
+        private final int hash;
+
+        ByteKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ByteKey other && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
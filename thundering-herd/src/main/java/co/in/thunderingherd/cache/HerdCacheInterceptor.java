@@ -0,0 +1,262 @@
+package co.in.thunderingherd.cache;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.CacheKey;
+import co.in.thunderingherd.core.ThunderingHerdCacheManager;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Applies {@link HerdCacheable}. Everything derived from the annotation - the parsed key
+ * expression, parameter names, TTL and policy - is resolved once per method and cached,
+ * and key expressions are compiled to bytecode after their first evaluations, so a call
+ * costs one map lookup plus the key evaluation before reaching the cache manager. Keys that
+ * just name a parameter ({@code #sku}, {@code #p0}) skip SpEL entirely, and recently used
+ * keys are kept encoded per method, so a hot key is not rebuilt on every call.
+ *
+ * A hit through the annotation still allocates more than a direct
+ * {@link ThunderingHerdCacheManager#get(CacheKey, Function, Object, long, ThunderingHerdCacheManager.LookupPolicy)}
+ * hit: the copy of the invocation handed to the loader and, for {@code Optional} methods,
+ * the wrapper. Callers that need the bare hit path call the manager with a held key.
+ */
+public class HerdCacheInterceptor implements MethodInterceptor {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, HerdCacheInterceptor.class.getClassLoader()));
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+    // Per method; dropped wholesale when full, which keeps the hot keys one miss away
+    private static final int MAX_KEYS_PER_METHOD = 4096;
+
+    private final Supplier<ThunderingHerdCacheManager> cacheManager;
+    private final Supplier<ThunderingHerdProperties> properties;
+    private final Map<Method, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Takes suppliers so the advisor can be created before the beans it will advise.
+     */
+    public HerdCacheInterceptor(Supplier<ThunderingHerdCacheManager> cacheManager,
+                                Supplier<ThunderingHerdProperties> properties) {
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Operation operation = operations.computeIfAbsent(invocation.getMethod(),
+                method -> operationFor(method, invocation.getThis()));
+        try {
+            return operation.bulk() ? invokeBulk(operation, invocation) : invokeSingle(operation, invocation);
+        } catch (Exception e) {
+            throw LoaderException.unwrap(e);
+        }
+    }
+
+    private Object invokeSingle(Operation operation, MethodInvocation invocation) throws Exception {
+        CacheKey key = cacheKey(operation, singleKey(operation, invocation));
+        // An early refresh proceeds on the refresh executor after this call has returned, and
+        // an invocation is stateful, so the loader always gets its own copy
+        MethodInvocation loaderInvocation = ((ProxyMethodInvocation) invocation).invocableClone();
+        Object value = cacheManager.get().get(key, operation.loader(), loaderInvocation,
+                operation.ttlSeconds(), operation.policy());
+        return operation.optional() ? Optional.ofNullable(value) : value;
+    }
+
+    private Object invokeBulk(Operation operation, MethodInvocation invocation) throws Exception {
+        Map<String, Object> elementsByKey = new LinkedHashMap<>();
+        for (Object element : (Collection<?>) invocation.getArguments()[0]) {
+            elementsByKey.put(operation.prefix() + elementKey(operation, element), element);
+        }
+
+        // Early refreshes call the loader after this call has returned; see invokeSingle
+        MethodInvocation loaderInvocation = ((ProxyMethodInvocation) invocation).invocableClone();
+        Map<String, Object> found = cacheManager.get().getAll(new ArrayList<>(elementsByKey.keySet()),
+                misses -> proceedBulk(loaderInvocation, misses, elementsByKey),
+                operation.ttlSeconds(), operation.policy());
+
+        Map<Object, Object> result = new LinkedHashMap<>();
+        elementsByKey.forEach((key, element) -> {
+            Object value = found.get(key);
+            if (value != null) {
+                result.put(element, value);
+            }
+        });
+        return result;
+    }
+
+    private static Object proceed(boolean optional, MethodInvocation invocation) {
+        try {
+            Object result = invocation.proceed();
+            return optional && result != null ? ((Optional<?>) result).orElse(null) : result;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new LoaderException(t);
+        }
+    }
+
+    /**
+     * Calls the method once with only the missing elements and re-keys its map by cache key.
+     */
+    private Map<String, Object> proceedBulk(MethodInvocation invocation, List<String> misses,
+                                            Map<String, Object> elementsByKey) {
+        List<Object> elements = new ArrayList<>(misses.size());
+        for (String key : misses) {
+            elements.add(elementsByKey.get(key));
+        }
+
+        Map<?, ?> loaded;
+        try {
+            Object[] arguments = invocation.getArguments().clone();
+            arguments[0] = elements;
+            loaded = (Map<?, ?>) ((ProxyMethodInvocation) invocation).invocableClone(arguments).proceed();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new LoaderException(t);
+        }
+
+        Map<String, Object> byKey = new LinkedHashMap<>();
+        if (loaded != null) {
+            for (String key : misses) {
+                byKey.put(key, loaded.get(elementsByKey.get(key)));
+            }
+        }
+        return byKey;
+    }
+
+    private static CacheKey cacheKey(Operation operation, String id) {
+        Map<String, CacheKey> keys = operation.keys();
+        CacheKey key = keys.get(id);
+        if (key == null) {
+            if (keys.size() >= MAX_KEYS_PER_METHOD) {
+                keys.clear();
+            }
+            key = CacheKey.of(operation.prefix(), id);
+            keys.put(id, key);
+        }
+        return key;
+    }
+
+    private String singleKey(Operation operation, MethodInvocation invocation) {
+        Object[] arguments = invocation.getArguments();
+        if (operation.keyArgument() >= 0) {
+            return String.valueOf(arguments[operation.keyArgument()]);
+        }
+        EvaluationContext evaluationContext = SimpleEvaluationContext.forReadOnlyDataBinding().build();
+        String[] names = operation.parameterNames();
+        String[] indexNames = operation.indexNames();
+        for (int i = 0; i < arguments.length; i++) {
+            if (names != null) {
+                evaluationContext.setVariable(names[i], arguments[i]);
+            }
+            evaluationContext.setVariable(indexNames[i], arguments[i]);
+        }
+        return String.valueOf(operation.key().getValue(evaluationContext));
+    }
+
+    private String elementKey(Operation operation, Object element) {
+        if (operation.key() == null) {
+            return String.valueOf(element);
+        }
+        EvaluationContext evaluationContext = SimpleEvaluationContext.forReadOnlyDataBinding().build();
+        evaluationContext.setVariable("element", element);
+        return String.valueOf(operation.key().getValue(evaluationContext));
+    }
+
+    private Operation operationFor(Method method, Object target) {
+        Method specific = target != null ? AopUtils.getMostSpecificMethod(method, target.getClass()) : method;
+        HerdCacheable annotation = AnnotatedElementUtils.findMergedAnnotation(specific, HerdCacheable.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @HerdCacheable on " + specific);
+        }
+
+        Class<?>[] parameterTypes = specific.getParameterTypes();
+        if (parameterTypes.length == 0) {
+            throw new IllegalStateException("@HerdCacheable method needs at least one parameter: " + specific);
+        }
+        if (annotation.bulk()) {
+            if (parameterTypes.length != 1 || !parameterTypes[0].isAssignableFrom(List.class)
+                    || !Collection.class.isAssignableFrom(parameterTypes[0])
+                    || !specific.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+                throw new IllegalStateException(
+                        "Bulk @HerdCacheable method must take one List and return a Map: " + specific);
+            }
+            if (annotation.serveStale()) {
+                throw new IllegalStateException("serveStale is not supported in bulk mode: " + specific);
+            }
+        }
+
+        Expression key = annotation.key().isEmpty() ? null : PARSER.parseExpression(annotation.key());
+        String[] parameterNames = PARAMETER_NAMES.getParameterNames(specific);
+        String[] indexNames = new String[parameterTypes.length];
+        for (int i = 0; i < indexNames.length; i++) {
+            indexNames[i] = "p" + i;
+        }
+        long ttl = annotation.ttl() > 0 ? annotation.ttl() : properties.get().getCache().getDefaultTtl();
+        boolean optional = !annotation.bulk() && specific.getReturnType() == Optional.class;
+        return new Operation(
+                annotation.namespace() + ":",
+                key,
+                annotation.bulk() ? -1 : keyArgument(annotation.key(), parameterNames, indexNames),
+                parameterNames,
+                indexNames,
+                ttl,
+                new ThunderingHerdCacheManager.LookupPolicy(annotation.cacheNulls(), annotation.serveStale(),
+                        Set.of(annotation.tags())),
+                optional,
+                annotation.bulk(),
+                invocation -> proceed(optional, invocation),
+                new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @return the index of the parameter the key expression names on its own, or -1 when it
+     * needs evaluating
+     */
+    private static int keyArgument(String key, String[] parameterNames, String[] indexNames) {
+        if (key.isEmpty()) {
+            return 0;
+        }
+        String name = key.startsWith("#") ? key.substring(1) : null;
+        for (int i = 0; name != null && i < indexNames.length; i++) {
+            if (name.equals(indexNames[i]) || (parameterNames != null && name.equals(parameterNames[i]))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param keyArgument parameter used as the key as-is, or -1 to evaluate {@code key}
+     * @param loader      built once so a hit allocates no lambda
+     * @param keys        encoded cache keys by evaluated key, bounded by {@link #MAX_KEYS_PER_METHOD}
+     */
+    private record Operation(String prefix, Expression key, int keyArgument, String[] parameterNames,
+                             String[] indexNames, long ttlSeconds,
+                             ThunderingHerdCacheManager.LookupPolicy policy, boolean optional, boolean bulk,
+                             Function<MethodInvocation, Object> loader, Map<String, CacheKey> keys) {
+    }
+}
@@ -0,0 +1,48 @@
+package co.in.thunderingherd.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches a method's result through {@link co.in.thunderingherd.core.ThunderingHerdCacheManager}
+ * under {@code <namespace>:<key>}, with single-flight, jittered TTL, early refresh and
+ * negative caching. The method body is the loader and runs only on a miss, so it can
+ * simply return what the data source returns. {@code Optional} results are unwrapped for
+ * caching, with an empty Optional stored as a negative entry.
+ *
+ * <p>With {@link #bulk()} the method must take a single collection of elements and return
+ * a map keyed by those elements. Each element is looked up with one MGET; the method is
+ * then called once with only the misses, and the combined map is returned in input order
+ * without the elements that were not found.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HerdCacheable {
+
+    /** Key prefix, up to the first ':', which is also the metrics namespace. */
+    String namespace();
+
+    /**
+     * SpEL over the parameters ({@code #sku}, {@code #p0}); empty means the first argument.
+     * In bulk mode it is evaluated per element as {@code #element}, and empty means the element.
+     */
+    String key() default "";
+
+    /** TTL in seconds before jitter; 0 uses {@code thundering-herd.cache.default-ttl}. */
+    long ttl() default 0;
+
+    /** Serve the last cached value if the method fails. Not supported in bulk mode. */
+    boolean serveStale() default false;
+
+    /** Store null / empty results as negative entries. */
+    boolean cacheNulls() default true;
+
+    /** Tags the cached entries join, for {@code ThunderingHerdCacheManager.invalidateTag}. */
+    String[] tags() default {};
+
+    boolean bulk() default false;
+}
@@ -0,0 +1,25 @@
+package co.in.thunderingherd.cache;
+
+/**
+ * Carries a loader's own failure through the cache manager, which only accepts
+ * suppliers, so callers can rethrow it as it was - including on single-flight
+ * followers, who see it wrapped once more.
+ */
+final class LoaderException extends RuntimeException {
+
+    LoaderException(Throwable cause) {
+        super(cause);
+    }
+
+    /**
+     * @return the loader's failure if e carries one, otherwise e itself
+     */
+    static Throwable unwrap(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LoaderException) {
+                return cause.getCause();
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,95 @@
+package co.in.thunderingherd.cache;
+
+import co.in.thunderingherd.core.CacheMetrics;
+import co.in.thunderingherd.core.CachedItem;
+import co.in.thunderingherd.core.ThunderingHerdCacheManager;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} over {@link ThunderingHerdCacheManager}.
+ * Entries live under {@code <name>::<key>}. {@link #get(Object, Callable)} - what
+ * {@code @Cacheable(sync = true)} calls - is a single manager lookup, so it gets
+ * single-flight, jittered TTLs, early refresh and negative caching, and costs one GET on
+ * a hit and one GET plus one SET on a miss. Null results are always negatively cached.
+ * {@link #clear()} moves the cache's namespace to a new generation rather than scanning,
+ * so it also covers entries stored under a bumped or {@code #}-containing key.
+ */
+public class ThunderingHerdCache extends AbstractValueAdaptingCache {
+
+    static final String KEY_SEPARATOR = "::";
+
+    private final String name;
+    private final ThunderingHerdCacheManager cacheManager;
+    private final long ttlSeconds;
+
+    public ThunderingHerdCache(String name, ThunderingHerdCacheManager cacheManager, long ttlSeconds) {
+        super(true);
+        this.name = name;
+        this.cacheManager = cacheManager;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ThunderingHerdCacheManager getNativeCache() {
+        return cacheManager;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CachedItem<Object> item = cacheManager.peek(cacheKey(key));
+        if (item == null) {
+            return null;
+        }
+        return item.isNegative() ? NullValue.INSTANCE : item.getValue();
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        try {
+            return cacheManager.get(cacheKey(key), () -> {
+                try {
+                    return valueLoader.call();
+                } catch (Exception e) {
+                    throw new LoaderException(e);
+                }
+            }, ttlSeconds);
+        } catch (Exception e) {
+            Throwable cause = LoaderException.unwrap(e);
+            if (cause == e && e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cacheManager.put(cacheKey(key), value, ttlSeconds);
+    }
+
+    @Override
+    public void evict(Object key) {
+        cacheManager.invalidate(cacheKey(key));
+    }
+
+    @Override
+    public void clear() {
+        cacheManager.invalidateNamespace(CacheMetrics.namespaceOf(name + KEY_SEPARATOR));
+    }
+
+    private String cacheKey(Object key) {
+        return name + KEY_SEPARATOR + key;
+    }
+}
@@ -0,0 +1,41 @@
+package co.in.thunderingherd.cache;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.ThunderingHerdCacheManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * The application's Spring {@link org.springframework.cache.CacheManager}: every cache is a
+ * {@link ThunderingHerdCache} over the shared {@link ThunderingHerdCacheManager}. Caches
+ * listed in {@code thundering-herd.spring-cache.ttls} are created up front with their TTL;
+ * any other name is created on first use with the default TTL.
+ */
+@Component("cacheManager")
+@RequiredArgsConstructor
+public class ThunderingHerdSpringCacheManager extends AbstractCacheManager {
+
+    private final ThunderingHerdCacheManager cacheManager;
+    private final ThunderingHerdProperties properties;
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getSpringCache().getTtls().keySet().stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private ThunderingHerdCache createCache(String name) {
+        Long ttl = properties.getSpringCache().getTtls().get(name);
+        return new ThunderingHerdCache(name, cacheManager, ttl != null ? ttl : properties.getCache().getDefaultTtl());
+    }
+}
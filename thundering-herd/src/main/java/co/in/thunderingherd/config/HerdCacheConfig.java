@@ -0,0 +1,41 @@
+package co.in.thunderingherd.config;
+
+import co.in.thunderingherd.cache.HerdCacheInterceptor;
+import co.in.thunderingherd.cache.HerdCacheable;
+import co.in.thunderingherd.core.ThunderingHerdCacheManager;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.lang.reflect.Method;
+
+@Configuration(proxyBeanMethods = false)
+public class HerdCacheConfig {
+
+    /**
+     * Plain Spring AOP advisor - no AspectJ weaver or load-time weaving. The pointcut is
+     * static, so matching happens once when proxies are created, never per call; the
+     * infrastructure role lets the auto-proxy creator registered by @EnableCaching pick it up.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor herdCacheAdvisor(ObjectProvider<ThunderingHerdCacheManager> cacheManager,
+                                           ObjectProvider<ThunderingHerdProperties> properties) {
+        return new StaticMethodMatcherPointcutAdvisor(
+                new HerdCacheInterceptor(SingletonSupplier.of(cacheManager::getObject),
+                        SingletonSupplier.of(properties::getObject))) {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return AnnotatedElementUtils.hasAnnotation(AopUtils.getMostSpecificMethod(method, targetClass),
+                        HerdCacheable.class);
+            }
+        };
+    }
+}
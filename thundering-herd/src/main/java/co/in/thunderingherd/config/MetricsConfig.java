@@ -0,0 +1,89 @@
+package co.in.thunderingherd.config;
+
+import co.in.thunderingherd.core.LocalCacheTier;
+import co.in.thunderingherd.core.MicrometerSingleFlightListener;
+import co.in.thunderingherd.core.OffHeapStore;
+import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.service.ProductService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Exposes the SingleFlight totals as function counters, registered once at startup
+     * and read from the striped counters only when the registry is scraped, plus the
+     * fan-in / wait-time histograms and gauges of keys in flight and lingering.
+     */
+    @Bean
+    public MeterBinder singleFlightMetrics(SingleFlight singleFlight, ThunderingHerdProperties properties) {
+        return registry -> {
+            FunctionCounter.builder("singleflight.executions", singleFlight, sf -> sf.getMetrics().executions())
+                    .description("Loader executions performed by a single-flight leader")
+                    .register(registry);
+            FunctionCounter.builder("singleflight.deduplications", singleFlight, sf -> sf.getMetrics().deduplications())
+                    .description("Callers that joined an in-flight execution instead of running their own")
+                    .register(registry);
+            Gauge.builder("singleflight.inflight", singleFlight, SingleFlight::inFlightCount)
+                    .description("Keys with a single-flight execution currently in progress")
+                    .register(registry);
+            FunctionCounter.builder("singleflight.linger.hits", singleFlight, SingleFlight::lingerHitCount)
+                    .description("Callers served a recently finished result from the linger window")
+                    .register(registry);
+            Gauge.builder("singleflight.lingering", singleFlight, SingleFlight::lingeringCount)
+                    .description("Results currently held in the linger window")
+                    .register(registry);
+
+            ThunderingHerdProperties.SingleFlightConfig config = properties.getSingleflight();
+            singleFlight.addListener(new MicrometerSingleFlightListener(
+                    registry, config.getLatencySlos(), config.getFaninSlos()));
+        };
+    }
+
+    /**
+     * Feeds the id lookups' LongSingleFlight into the same fan-in / wait-time histograms,
+     * under the product-id namespace.
+     */
+    @Bean
+    public MeterBinder idSingleFlightMetrics(ProductService productService, ThunderingHerdProperties properties) {
+        return registry -> {
+            ThunderingHerdProperties.SingleFlightConfig config = properties.getSingleflight();
+            productService.productsById().singleFlight().addListener(new MicrometerSingleFlightListener(
+                    registry, config.getLatencySlos(), config.getFaninSlos()));
+        };
+    }
+
+    /**
+     * Size, memory and eviction readings for the off-heap local tier, when it is enabled.
+     */
+    @Bean
+    public MeterBinder localCacheMetrics(LocalCacheTier localCacheTier) {
+        return registry -> {
+            OffHeapStore store = localCacheTier.store();
+            if (store == null) {
+                return;
+            }
+            Gauge.builder("cache.local.entries", store, OffHeapStore::size)
+                    .description("Entries held in the off-heap local tier")
+                    .register(registry);
+            Gauge.builder("cache.local.used", store, OffHeapStore::usedBytes)
+                    .description("Off-heap bytes appended to local tier slabs")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("cache.local.capacity", store, OffHeapStore::capacityBytes)
+                    .description("Off-heap bytes the local tier may use")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("cache.local.evictions", store, OffHeapStore::evictions)
+                    .description("Entries dropped from the local tier to stay within its limits")
+                    .register(registry);
+            FunctionCounter.builder("cache.local.tracking.invalidations", localCacheTier, LocalCacheTier::invalidations)
+                    .description("Invalidation pushes from Redis client tracking, and dropped tracking connections")
+                    .register(registry);
+        };
+    }
+}
@@ -3,6 +3,15 @@ package co.in.thunderingherd.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @Configuration
@@ -11,6 +20,15 @@ public class ThunderingHerdProperties {
 
     private CacheConfig cache = new CacheConfig();
     private SingleFlightConfig singleflight = new SingleFlightConfig();
+    private BenchmarkConfig benchmark = new BenchmarkConfig();
+    private BatchConfig batch = new BatchConfig();
+    private ReactiveConfig reactive = new ReactiveConfig();
+    private CoalescingConfig coalescing = new CoalescingConfig();
+    private SpringCacheConfig springCache = new SpringCacheConfig();
+    private LocalCacheConfig localCache = new LocalCacheConfig();
+    private RetryConfig retry = new RetryConfig();
+    private WriteBehindConfig writeBehind = new WriteBehindConfig();
+    private TagsConfig tags = new TagsConfig();
 
     @Data
     public static class CacheConfig {
@@ -18,10 +36,137 @@ public class ThunderingHerdProperties {
         private int jitterPercentage = 20;
         private double beta = 2.0;
         private long negativeCacheTtl = 60;
+        /** How often namespace generations bumped by other nodes are re-read from Redis. */
+        private long generationRefreshMs = 1000;
     }
 
     @Data
     public static class SingleFlightConfig {
         private long timeout = 10000;
+        /** Followers one in-flight call admits; later callers for the key are rejected. */
+        private int maxWaitersPerKey = 10000;
+        /** Distinct keys allowed in flight at once; callers needing another key are rejected. */
+        private int maxInFlightKeys = 100000;
+        /**
+         * How long a finished call's successful result is still handed to new callers for
+         * the same key; 0 disables it. Results may be this much out of date.
+         */
+        private long lingerMs = 0;
+        /** Most results lingering at once; the oldest is dropped first. */
+        private int lingerMaxKeys = 10000;
+        private List<Duration> latencySlos = List.of(
+                Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+                Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        private List<Double> faninSlos = List.of(0.0, 1.0, 5.0, 10.0, 50.0, 100.0, 500.0, 1000.0);
+    }
+
+    @Data
+    public static class BenchmarkConfig {
+        private String resultsFile = "benchmark-results.jsonl";
+        private int maxRequestsPerCell = 100000;
+        /**
+         * Load-test worker threads. A blocking request holds one for its whole duration, so
+         * this is also the highest concurrency a load test accepts.
+         */
+        private int maxConcurrency = 1000;
+    }
+
+    @Data
+    public static class BatchConfig {
+        private int maxSkus = 500;
+    }
+
+    @Data
+    public static class ReactiveConfig {
+        /** Threads available to blocking loaders called from the reactive cache manager. */
+        private int loaderThreads = 64;
+        /** Loader tasks allowed to queue once every loader thread is busy; beyond this they are rejected. */
+        private int loaderQueueSize = 10000;
+    }
+
+    @Data
+    public static class CoalescingConfig {
+        /**
+         * Route patterns whose identical in-flight GETs share one response; empty (the
+         * default) disables the filter. Only synchronous handlers may be listed -
+         * async/streaming responses cannot be captured.
+         */
+        private List<String> paths = List.of();
+        /** Request headers that select a different representation and so split the coalescing key. */
+        private List<String> varyHeaders = List.of("Accept", "Accept-Encoding", "Accept-Language");
+        /** Responses larger than this are not replayed; waiters run the request themselves. */
+        private int maxBodyBytes = 1024 * 1024;
+        private int maxWaitersPerKey = 1000;
+        private int maxInFlightKeys = 10000;
+        private long waitTimeoutMs = 5000;
+    }
+
+    @Data
+    public static class SpringCacheConfig {
+        /** TTL in seconds per @Cacheable cache name; unlisted caches use cache.default-ttl. */
+        private Map<String, Long> ttls = new HashMap<>();
+    }
+
+    @Data
+    public static class LocalCacheConfig {
+        /** Keep entries read from or written to Redis in an off-heap near cache on this node. */
+        private boolean enabled = false;
+        /** Off-heap bytes reserved for entries; counts against -XX:MaxDirectMemorySize. */
+        private long capacityMb = 256;
+        private int maxEntries = 1_000_000;
+        /** Independently locked partitions; a power of two. */
+        private int stripes = 16;
+        /** Longest a local copy is served before Redis is read again. */
+        private long ttlSeconds = 5;
+        /**
+         * Redis client-side caching: OFF bounds staleness by ttl-seconds alone, DEFAULT has
+         * Redis report changes to keys this node read, BCAST to any key under tracking-prefixes
+         * (other keys are then not kept locally). ttl-seconds then only bounds memory.
+         */
+        private Tracking tracking = Tracking.OFF;
+        private List<String> trackingPrefixes = List.of("product:");
+
+        public enum Tracking {
+            OFF, DEFAULT, BCAST
+        }
+    }
+
+    @Data
+    public static class RetryConfig {
+        /** Loader attempts per single-flight leader, including the first; 1 disables retries. */
+        private int maxAttempts = 3;
+        private long baseDelayMs = 50;
+        private long maxDelayMs = 1000;
+        /** Retries one key may spend per budget window, across all of its loads. */
+        private int budgetPerKey = 10;
+        private long budgetWindowMs = 10000;
+        /** A failure is retried when any exception in its cause chain is one of these. */
+        private List<Class<? extends Throwable>> retryableExceptions = List.of(
+                TransientDataAccessException.class, RecoverableDataAccessException.class,
+                SQLTransientException.class, SQLRecoverableException.class);
+    }
+
+    @Data
+    public static class WriteBehindConfig {
+        /** Queue loaded entries and write them to Redis from a background flusher. */
+        private boolean enabled = false;
+        private int queueCapacity = 10000;
+        /** Most entries written per pipelined flush. */
+        private int batchSize = 256;
+        /** How long a writer waits for room in a full queue before writing synchronously. */
+        private long offerTimeoutMs = 5;
+        /** How long an invalidation waits for a write of its key that is already being flushed. */
+        private long cancelWaitMs = 1000;
+        /** How long shutdown waits for the flusher to drain the queue. */
+        private long shutdownTimeoutMs = 10000;
+    }
+
+    @Data
+    public static class TagsConfig {
+        /** Keys popped and deleted by one invalidation script call. */
+        private int batchSize = 1000;
+        /** Invalidation script calls sent per round trip. */
+        private int pipelineDepth = 4;
     }
 }
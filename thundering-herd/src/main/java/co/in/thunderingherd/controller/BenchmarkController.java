@@ -0,0 +1,69 @@
+package co.in.thunderingherd.controller;
+
+import co.in.thunderingherd.service.BenchmarkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@RestController
+@RequestMapping("/benchmark")
+@RequiredArgsConstructor
+public class BenchmarkController {
+
+    private final BenchmarkService benchmarkService;
+
+    @PostMapping("/runs")
+    public DeferredResult<ResponseEntity<?>> runMatrix(@RequestBody BenchmarkService.MatrixRequest request) {
+        log.info("Running benchmark matrix: {}", request);
+        // No timeout: a matrix can take minutes, and it runs on the benchmark runner, not this thread
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(0L);
+        try {
+            benchmarkService.run(request).whenComplete((run, error) ->
+                    result.setResult(error == null ? ResponseEntity.ok(run) : failure(error)));
+        } catch (RuntimeException e) {
+            result.setResult(failure(e));
+        }
+        return result;
+    }
+
+    private static ResponseEntity<?> failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(Map.of("error", cause.getMessage()));
+        }
+        if (cause instanceof IllegalStateException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", cause.getMessage()));
+        }
+        log.error("Benchmark run failed", cause);
+        return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(cause.getMessage())));
+    }
+
+    @GetMapping("/runs")
+    public ResponseEntity<List<BenchmarkService.RunSummary>> listRuns() {
+        return ResponseEntity.ok(benchmarkService.listRuns());
+    }
+
+    @GetMapping("/runs/{id}")
+    public ResponseEntity<BenchmarkService.BenchmarkRun> getRun(@PathVariable String id) {
+        return benchmarkService.findRun(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/compare")
+    public ResponseEntity<?> compare(@RequestParam String baseline, @RequestParam String candidate) {
+        try {
+            return ResponseEntity.ok(benchmarkService.compare(baseline, candidate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
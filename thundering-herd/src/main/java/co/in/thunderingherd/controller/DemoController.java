@@ -1,16 +1,25 @@
 package co.in.thunderingherd.controller;
 
 
+import co.in.thunderingherd.core.CacheMetrics;
+import co.in.thunderingherd.core.RenderedBody;
 import co.in.thunderingherd.core.SingleFlight;
 import co.in.thunderingherd.model.Product;
+import co.in.thunderingherd.service.BenchmarkService;
 import co.in.thunderingherd.service.DatabaseService;
+import co.in.thunderingherd.service.LiveLoadTestService;
 import co.in.thunderingherd.service.LoadTestService;
 import co.in.thunderingherd.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -25,7 +34,9 @@ public class DemoController {
     private final ProductService productService;
     private final DatabaseService databaseService;
     private final LoadTestService loadTestService;
+    private final LiveLoadTestService liveLoadTestService;
     private final SingleFlight singleFlight;
+    private final CacheMetrics cacheMetrics;
 
     @GetMapping("/baseline")
     public ResponseEntity<Map<String, Object>> runBaseline(
@@ -179,6 +190,7 @@ public class DemoController {
         Map<String, Object> response = new HashMap<>();
         response.put("scenario", "Cache Stampede Simulation");
         response.put("concurrency", concurrency);
+        loadTestService.checkConcurrency(concurrency);
         try {
             log.info("Starting BASELINE test...");
             databaseService.resetQueryCount();
@@ -236,14 +248,14 @@ public class DemoController {
             response.put("baseline", baseline);
             response.put("fullSolution", full);
 
-            long queryReduction = baselineQueries / Math.max(1, fullQueries);
-            long timeReduction = baselineTime / Math.max(1, fullTime);
+            double queryReduction = (double) baselineQueries / Math.max(1, fullQueries);
+            double timeReduction = (double) baselineTime / Math.max(1, fullTime);
 
             Map<String, String> improvement = new HashMap<>();
-            improvement.put("queriesReduction", queryReduction + "x");
-            improvement.put("timeReduction", timeReduction + "x");
+            improvement.put("queriesReduction", String.format("%.1fx", queryReduction));
+            improvement.put("timeReduction", String.format("%.1fx", timeReduction));
             improvement.put("summary", String.format(
-                    "Reduced queries by %dx and improved speed by %dx",
+                    "Reduced queries by %.1fx and improved speed by %.1fx",
                     queryReduction,
                     timeReduction
             ));
@@ -264,11 +276,67 @@ public class DemoController {
         }
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @GetMapping(path = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLoadTest(
+            @RequestParam(defaultValue = "FULL") BenchmarkService.Strategy strategy,
+            @RequestParam(defaultValue = "HOT_KEY") BenchmarkService.KeyDistribution distribution,
+            @RequestParam(defaultValue = "100") int concurrency,
+            @RequestParam(defaultValue = "20000") int requests
+    ) {
+        log.info("Streaming LIVE load test: {} / {} with {} workers, {} requests",
+                strategy, distribution, concurrency, requests);
+        return liveLoadTestService.start(strategy, distribution, concurrency, requests);
+    }
+
+    /**
+     * Writes the cached JSON bytes straight to the response; the product is never
+     * deserialized or re-serialized on a hit. A matching If-None-Match is answered with
+     * 304 from the cached ETag alone, before the body is read.
+     */
     @GetMapping("/product/{sku}")
-    public ResponseEntity<Product> getProduct(@PathVariable String sku) throws Exception {
-        Optional<Product> product = productService.getProductFull(sku);
-        return product.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public void getProduct(@PathVariable String sku, ServletWebRequest request) throws Exception {
+        HttpServletResponse response = request.getResponse();
+        Optional<String> cachedEtag = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                ? productService.getProductEtag(sku)
+                : Optional.empty();
+        if (cachedEtag.isPresent() && request.checkNotModified(cachedEtag.get())) {
+            return;
+        }
+
+        Optional<RenderedBody> body = productService.getProductJson(sku);
+        if (body.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        RenderedBody rendered = body.get();
+        // Not cached when probed: the ETag is only known now that the body has been loaded
+        if (cachedEtag.isEmpty() && request.checkNotModified(rendered.etag())) {
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, rendered.etag());
+        response.setContentLength(rendered.length());
+        rendered.writeTo(response.getOutputStream());
+    }
+
+    @GetMapping("/product/id/{id}")
+    public ResponseEntity<Product> getProductById(@PathVariable long id) throws Exception {
+        return productService.getProductById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/cacheable/{sku}")
+    public ResponseEntity<Product> getProductCacheable(@PathVariable String sku) throws Exception {
+        Product product = productService.getProductCacheable(sku);
+        return product != null ? ResponseEntity.ok(product) : ResponseEntity.notFound().build();
     }
 
     @GetMapping("/metrics")
@@ -282,6 +350,14 @@ public class DemoController {
                 "executions", sfMetrics.executions(),
                 "dedupRatio", String.format("%.2f%%", sfMetrics.dedupRatioPercent())
         ));
+        response.put("cache", cacheMetrics.snapshot());
+        var productsById = productService.productsById();
+        response.put("idCache", Map.of(
+                "hits", productsById.hitCount(),
+                "misses", productsById.missCount(),
+                "size", productsById.size(),
+                "deduplications", productsById.singleFlight().getMetrics().deduplications()
+        ));
 
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,108 @@
+package co.in.thunderingherd.controller;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.RenderedBody;
+import co.in.thunderingherd.service.ProductService;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Multi-SKU lookups. The response is a JSON array streamed in resolution order: cache
+ * hits are flushed straight after the MGET, and misses follow as the bulk load completes.
+ * Each element is {"sku":..., "found":true, "product":{...}} or {"sku":..., "found":false}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/products")
+@RequiredArgsConstructor
+public class ProductController {
+
+    private static final byte[] SKU_PREFIX = "{\"sku\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FOUND = "\",\"found\":true,\"product\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOT_FOUND = "\",\"found\":false}".getBytes(StandardCharsets.US_ASCII);
+
+    private final ProductService productService;
+    private final ThunderingHerdProperties properties;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getProducts(@RequestParam List<String> skus) {
+        return stream(skus);
+    }
+
+    @PostMapping
+    public ResponseEntity<StreamingResponseBody> postProducts(@RequestBody List<String> skus) {
+        return stream(skus);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(List<String> requested) {
+        List<String> skus = requested.stream()
+                .map(String::trim)
+                .filter(sku -> !sku.isEmpty())
+                .distinct()
+                .toList();
+        int maxSkus = properties.getBatch().getMaxSkus();
+        if (skus.isEmpty() || skus.size() > maxSkus) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + maxSkus + " distinct SKUs are required");
+        }
+
+        log.debug("Batch lookup for {} SKUs", skus.size());
+        StreamingResponseBody body = out -> writeArray(skus, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private void writeArray(List<String> skus, OutputStream out) throws IOException {
+        out.write('[');
+        boolean[] first = {true};
+        try {
+            productService.streamProductsJson(skus, (sku, product) -> {
+                try {
+                    if (!first[0]) {
+                        out.write(',');
+                    }
+                    first[0] = false;
+                    writeItem(out, sku, product);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (Exception e) {
+            // Items already sent cannot be taken back; ending without ']' makes the failure visible to the client
+            log.error("Batch lookup failed after streaming started", e);
+            throw new IOException("Batch lookup failed", e);
+        }
+        out.write(']');
+        out.flush();
+    }
+
+    private static void writeItem(OutputStream out, String sku, Optional<RenderedBody> product) throws IOException {
+        out.write(SKU_PREFIX);
+        out.write(JsonStringEncoder.getInstance().quoteAsUTF8(sku));
+        if (product.isEmpty()) {
+            out.write(NOT_FOUND);
+            return;
+        }
+        out.write(FOUND);
+        product.get().writeTo(out);
+        out.write('}');
+    }
+}
@@ -0,0 +1,33 @@
+package co.in.thunderingherd.controller;
+
+import co.in.thunderingherd.model.Product;
+import co.in.thunderingherd.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of the product lookup. Returning a Mono lets Spring MVC complete the
+ * request asynchronously, so the Tomcat worker is released while the lookup waits on
+ * Redis, a single-flight leader or the loader scheduler instead of being parked.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/reactive")
+@RequiredArgsConstructor
+public class ReactiveProductController {
+
+    private final ProductService productService;
+
+    @GetMapping("/product/{sku}")
+    public Mono<ResponseEntity<Product>> getProduct(@PathVariable String sku) {
+        return productService.getProductReactive(sku)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,56 @@
+package co.in.thunderingherd.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A cache key together with its UTF-8 Redis encoding (what the template's
+ * StringRedisSerializer produces), computed once. A key that is looked up repeatedly
+ * can be built once and reused, so a hit never re-encodes it.
+ */
+public final class CacheKey {
+
+    private final String name;
+    private final byte[] encoded;
+    // Last mapping by NamespaceGenerations; a stale or racing value only costs a rebuild
+    volatile Mapped mapped;
+
+    private CacheKey(String name) {
+        this.name = name;
+        this.encoded = name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static CacheKey of(String name) {
+        return new CacheKey(name);
+    }
+
+    public static CacheKey of(String prefix, String id) {
+        return new CacheKey(prefix.concat(id));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Not copied; callers must not modify it. */
+    byte[] encoded() {
+        return encoded;
+    }
+
+    record Mapped(String namespace, long generation, CacheKey key) {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CacheKey other && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
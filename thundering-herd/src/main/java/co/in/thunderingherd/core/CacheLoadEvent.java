@@ -0,0 +1,46 @@
+package co.in.thunderingherd.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A call into the caller-supplied loader, on either the single-flight leader or a
+ * background refresh.
+ */
+@Name("co.in.thunderingherd.CacheLoad")
+@Label("Cache Loader Call")
+@Category({"Thundering Herd", "Cache"})
+@Description("Loader invocation for a cache key")
+@Enabled(false)
+@StackTrace(false)
+class CacheLoadEvent extends Event {
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Key")
+    String key;
+
+    @Label("Found")
+    @Description("Whether the loader returned a value rather than null")
+    boolean found;
+
+    @Label("Failed")
+    boolean failed;
+
+    void commit(String key, boolean found, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.namespace = CacheMetrics.namespaceOf(key);
+            this.key = key;
+            this.found = found;
+            this.failed = failed;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package co.in.thunderingherd.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@link ThunderingHerdCacheManager} lookup, spanning the Redis read and, on a miss,
+ * the single-flight load. Disabled unless a recording turns it on; until then no event is
+ * created, and the fields are only filled in when it will be committed.
+ */
+@Name("co.in.thunderingherd.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Thundering Herd", "Cache"})
+@Description("Cache lookup by tier")
+@Enabled(false)
+@StackTrace(false)
+class CacheLookupEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(CacheLookupEvent.class);
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Key")
+    String key;
+
+    @Label("Tier")
+    String tier;
+
+    /**
+     * @return a begun event, or null while no recording enables it, so a hit allocates
+     * nothing without relying on escape analysis
+     */
+    static CacheLookupEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        return event;
+    }
+
+    void commit(String key, CacheMetrics.Tier tier) {
+        end();
+        if (shouldCommit()) {
+            this.namespace = CacheMetrics.namespaceOf(key);
+            this.key = key;
+            this.tier = tier.tagValue();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package co.in.thunderingherd.core;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-tier cache counters, split by key namespace (the prefix before the first ':').
+ * Counters are striped LongAdders and the Micrometer meters are registered once per
+ * namespace as function counters reading them, so recording on the request path is a
+ * single uncontended add with no meter lookup or allocation.
+ */
+@Component
+public class CacheMetrics {
+
+    static final String DEFAULT_NAMESPACE = "default";
+    static final String OVERFLOW_NAMESPACE = "other";
+    private static final int MAX_NAMESPACES = 64;
+
+    private final MeterRegistry meterRegistry;
+    private volatile Namespace[] namespaces = new Namespace[0];
+    private volatile Namespace overflow;
+
+    public CacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String key, Tier tier) {
+        forKey(key).counters[tier.ordinal()].increment();
+    }
+
+    public long count(String namespace, Tier tier) {
+        for (Namespace ns : namespaces) {
+            if (ns.name.equals(namespace)) {
+                return ns.counters[tier.ordinal()].sum();
+            }
+        }
+        return 0;
+    }
+
+    public Map<String, Map<Tier, Long>> snapshot() {
+        Map<String, Map<Tier, Long>> snapshot = new LinkedHashMap<>();
+        for (Namespace ns : namespaces) {
+            Map<Tier, Long> tiers = new EnumMap<>(Tier.class);
+            for (Tier tier : Tier.values()) {
+                tiers.put(tier, ns.counters[tier.ordinal()].sum());
+            }
+            snapshot.put(ns.name, tiers);
+        }
+        return snapshot;
+    }
+
+    public void reset() {
+        for (Namespace ns : namespaces) {
+            for (LongAdder counter : ns.counters) {
+                counter.reset();
+            }
+        }
+    }
+
+    /**
+     * Matches the key against the known namespaces without building a substring;
+     * only the first sighting of a namespace takes the lock and registers meters.
+     */
+    private Namespace forKey(String key) {
+        for (Namespace ns : namespaces) {
+            if (ns.matches(key)) {
+                return ns;
+            }
+        }
+        Namespace full = overflow;
+        return full != null ? full : register(namespaceOf(key));
+    }
+
+    private synchronized Namespace register(String name) {
+        Namespace[] current = namespaces;
+        for (Namespace ns : current) {
+            if (ns.name.equals(name)) {
+                return ns;
+            }
+        }
+        boolean full = current.length >= MAX_NAMESPACES;
+        if (full) {
+            name = OVERFLOW_NAMESPACE;
+        }
+
+        Namespace ns = new Namespace(name);
+        for (Tier tier : Tier.values()) {
+            FunctionCounter.builder(tier.meterName, ns.counters[tier.ordinal()], LongAdder::sum)
+                    .description(tier.description)
+                    .tag("namespace", name)
+                    .tag("tier", tier.tagValue)
+                    .register(meterRegistry);
+        }
+
+        Namespace[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = ns;
+        namespaces = updated;
+        if (full) {
+            overflow = ns;
+        }
+        return ns;
+    }
+
+    public static String namespaceOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : DEFAULT_NAMESPACE;
+    }
+
+    public enum Tier {
+        L1_HIT("cache.lookups", "l1_hit", "Lookups served from the local tier"),
+        REDIS_HIT("cache.lookups", "redis_hit", "Lookups served from Redis"),
+        NEGATIVE_HIT("cache.lookups", "negative_hit", "Lookups answered by a negative cache entry"),
+        MISS("cache.lookups", "miss", "Lookups that found nothing and went to the loader"),
+        EARLY_REFRESH("cache.refreshes", "early_refresh", "Probabilistic early refreshes triggered"),
+        STALE_SERVED("cache.stale.served", "stale", "Stale values served after a loader failure");
+
+        private final String meterName;
+        private final String tagValue;
+        private final String description;
+
+        Tier(String meterName, String tagValue, String description) {
+            this.meterName = meterName;
+            this.tagValue = tagValue;
+            this.description = description;
+        }
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    private static final class Namespace {
+        private final String name;
+        private final LongAdder[] counters = new LongAdder[Tier.values().length];
+
+        Namespace(String name) {
+            this.name = name;
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new LongAdder();
+            }
+        }
+
+        boolean matches(String key) {
+            if (name.equals(DEFAULT_NAMESPACE)) {
+                return key.indexOf(':') <= 0;
+            }
+            if (name.equals(OVERFLOW_NAMESPACE)) {
+                return false;
+            }
+            return key.length() > name.length()
+                    && key.charAt(name.length()) == ':'
+                    && key.startsWith(name);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package co.in.thunderingherd.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A probabilistic early refresh running in the background, from loader call to cache write.
+ */
+@Name("co.in.thunderingherd.CacheRefresh")
+@Label("Background Refresh")
+@Category({"Thundering Herd", "Cache"})
+@Description("Background early refresh of a cache entry")
+@Enabled(false)
+@StackTrace(false)
+class CacheRefreshEvent extends Event {
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Key")
+    String key;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    void commit(String key, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.namespace = CacheMetrics.namespaceOf(key);
+            this.key = key;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
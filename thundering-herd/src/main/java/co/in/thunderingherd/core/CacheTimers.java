@@ -0,0 +1,94 @@
+package co.in.thunderingherd.core;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers for {@link ThunderingHerdCacheManager}: one end-to-end timer per lookup
+ * outcome, plus the Redis round trip and the value codec timed on their own so a slow
+ * lookup can be attributed. All timers are registered up front with percentile histograms
+ * so the request path only does an array index and a record.
+ */
+@Component
+public class CacheTimers {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(100_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final Timer[] lookups = new Timer[Outcome.values().length];
+    private final Timer[] redis = new Timer[RedisOp.values().length];
+    private final Timer[] codec = new Timer[CodecOp.values().length];
+
+    public CacheTimers(MeterRegistry registry) {
+        for (Outcome outcome : Outcome.values()) {
+            lookups[outcome.ordinal()] = histogram("cache.lookup.duration")
+                    .description("End-to-end cache manager lookup time by outcome")
+                    .tag("outcome", outcome.tagValue())
+                    .register(registry);
+        }
+        for (RedisOp op : RedisOp.values()) {
+            redis[op.ordinal()] = histogram("cache.redis.duration")
+                    .description("Redis round trip for cache reads and writes, excluding serialization")
+                    .tag("op", op.tagValue())
+                    .register(registry);
+        }
+        for (CodecOp op : CodecOp.values()) {
+            codec[op.ordinal()] = histogram("cache.codec.duration")
+                    .description("Cached value serialization and deserialization time")
+                    .tag("op", op.tagValue())
+                    .register(registry);
+        }
+    }
+
+    private static Timer.Builder histogram(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+
+    public void recordLookup(Outcome outcome, long startNanos) {
+        lookups[outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRedis(RedisOp op, long startNanos) {
+        redis[op.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCodec(CodecOp op, long startNanos) {
+        codec[op.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer lookupTimer(Outcome outcome) {
+        return lookups[outcome.ordinal()];
+    }
+
+    public enum Outcome {
+        L1_HIT, REDIS_HIT, NEGATIVE_HIT, COALESCED, LOADED, STALE, REJECTED, ERROR;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum RedisOp {
+        GET, GET_HEADER, MGET, SET;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum CodecOp {
+        DECODE, ENCODE;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Optional write-behind for cache population: the loading thread enqueues the serialized
+ * entry and returns, so single-flight followers are released as soon as the value is
+ * loaded, and a background flusher writes queued entries to Redis as pipelined SET EX
+ * batches. A write's tags are added in the same pipeline, so tagging stays off the
+ * loading thread too.
+ *
+ * The latest pending write per key is also kept in a map until its SET has returned.
+ * Readers that miss in Redis are served from it, a newer write for the key supersedes an
+ * older queued one, and an invalidation cancels it. A cancelled write that the flusher has
+ * already sent is waited for, so the caller's DEL always lands after it and a queued write
+ * cannot resurrect an invalidated entry.
+ * The queue is bounded: a full queue blocks the caller for up to offer-timeout-ms and then
+ * makes it write synchronously. On shutdown the flusher drains the queue before stopping.
+ */
+@Slf4j
+@Component
+public class CacheWriteBehind implements DisposableBean {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheTimers cacheTimers;
+    private final TagIndex tagIndex;
+    private final ThunderingHerdProperties.WriteBehindConfig config;
+    private final ArrayBlockingQueue<PendingWrite> queue;
+    private final ConcurrentHashMap<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final long cancelWaitMs;
+    private final Thread flusher;
+    private final Counter[] counters = new Counter[Result.values().length];
+    private final Timer lag;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running = true;
+
+    public CacheWriteBehind(RedisTemplate<String, Object> redisTemplate, CacheTimers cacheTimers, TagIndex tagIndex,
+                            ThunderingHerdProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.cacheTimers = cacheTimers;
+        this.tagIndex = tagIndex;
+        this.config = properties.getWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        this.cancelWaitMs = Math.max(1, config.getCancelWaitMs());
+
+        for (Result result : Result.values()) {
+            counters[result.ordinal()] = Counter.builder("cache.writebehind.writes")
+                    .description("Cache writes handed to write-behind, by how they ended")
+                    .tag("result", result.tagValue())
+                    .register(meterRegistry);
+        }
+        this.lag = Timer.builder("cache.writebehind.lag")
+                .description("Time from enqueueing a cache write to it reaching Redis")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("cache.writebehind.batch")
+                .description("Entries written per pipelined flush")
+                .register(meterRegistry);
+        Gauge.builder("cache.writebehind.queued", queue, ArrayBlockingQueue::size)
+                .description("Cache writes waiting to be flushed")
+                .register(meterRegistry);
+
+        if (config.isEnabled()) {
+            this.flusher = new Thread(this::flushLoop, "cache-write-behind");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return flusher != null;
+    }
+
+    /**
+     * Queues a write, and its tag updates, waiting up to offer-timeout-ms for room.
+     *
+     * @return false when write-behind is off or the queue stayed full; the caller then
+     * writes synchronously
+     */
+    public boolean enqueue(String key, byte[] raw, long ttlSeconds, Set<String> tags) {
+        if (flusher == null || !running) {
+            return false;
+        }
+        PendingWrite write = new PendingWrite(key, raw, ttlSeconds, tags, System.nanoTime());
+        PendingWrite replaced = pending.put(key, write);
+        if (replaced != null) {
+            replaced.cancel();
+        }
+        boolean queued;
+        try {
+            queued = queue.offer(write, config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            write.cancel();
+            pending.remove(key, write);
+            record(Result.SYNC_FALLBACK);
+        }
+        return queued;
+    }
+
+    /**
+     * @return the bytes of a write still waiting to be flushed, or null
+     */
+    public byte[] pending(String key) {
+        if (flusher == null) {
+            return null;
+        }
+        PendingWrite write = pending.get(key);
+        return write == null ? null : write.raw();
+    }
+
+    /**
+     * Cancels the key's pending write. If the flusher already sent it, waits up to
+     * cancel-wait-ms for its SET to return, so a DEL issued afterwards cannot be overtaken.
+     *
+     * @return true when the write had already been sent and has reached Redis (or failed)
+     */
+    public boolean cancel(String key) {
+        if (flusher == null) {
+            return false;
+        }
+        PendingWrite write = pending.remove(key);
+        return write != null && cancel(write);
+    }
+
+    /**
+     * Cancels the pending writes whose keys match a Redis glob pattern, leaving the rest queued.
+     */
+    public void cancelMatching(String pattern) {
+        if (flusher == null || pending.isEmpty()) {
+            return;
+        }
+        Pattern regex = globToRegex(pattern);
+        for (PendingWrite write : pending.values()) {
+            if (regex.matcher(write.key()).matches() && pending.remove(write.key(), write)) {
+                cancel(write);
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending writes carrying the tag. Their keys are not in the tag's set until
+     * flushed, so a tag invalidation would otherwise miss them; one already sent is waited for,
+     * which puts its key in the set before the invalidation reads it.
+     *
+     * @param onCancelled called with each cancelled key, e.g. to drop local copies
+     */
+    public void cancelTagged(String tag, Consumer<String> onCancelled) {
+        if (flusher == null || pending.isEmpty()) {
+            return;
+        }
+        for (PendingWrite write : pending.values()) {
+            if (write.tags().contains(tag) && pending.remove(write.key(), write)) {
+                cancel(write);
+                onCancelled.accept(write.key());
+            }
+        }
+    }
+
+    private boolean cancel(PendingWrite write) {
+        if (write.cancel()) {
+            return false;
+        }
+        try {
+            if (!write.awaitFlushed(cancelWaitMs)) {
+                log.warn("Cancelled a cache write for key {} still being flushed after {} ms", write.key(), cancelWaitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>(config.getBatchSize());
+        // Enqueueing stops once running is cleared, so draining what is left terminates
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Write-behind flusher interrupted with {} cache entries queued", queue.size());
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind flusher failed on a batch of {} cache entries", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch and its tags in one pipeline, skipping entries that were superseded or cancelled.
+     * Written entries stay pending until the pipeline returns, so readers and cancellations
+     * see them for the whole time they are on the wire.
+     */
+    @SuppressWarnings("unchecked")
+    private void flush(List<PendingWrite> batch) {
+        List<PendingWrite> current = new ArrayList<>(batch.size());
+        boolean tagged = false;
+        for (PendingWrite write : batch) {
+            if (write.send()) {
+                current.add(write);
+                tagged |= !write.tags().isEmpty();
+            } else {
+                record(Result.SKIPPED);
+            }
+        }
+        if (current.isEmpty()) {
+            return;
+        }
+
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        long started = System.nanoTime();
+        try {
+            if (tagged) {
+                // SETs and tag additions are idempotent, so a NOSCRIPT retry may resend the batch
+                tagIndex.withScripts(() -> writeBatch(current, keySerializer));
+            } else {
+                writeBatch(current, keySerializer);
+            }
+            long written = System.nanoTime();
+            cacheTimers.recordRedis(CacheTimers.RedisOp.SET, started);
+            batchSizes.record(current.size());
+            for (PendingWrite write : current) {
+                lag.record(written - write.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            }
+            record(Result.WRITTEN, current.size());
+        } catch (RuntimeException e) {
+            record(Result.FAILED, current.size());
+            log.error("Write-behind flush of {} cache entries failed", current.size(), e);
+        } finally {
+            for (PendingWrite write : current) {
+                pending.remove(write.key(), write);
+                write.flushed();
+            }
+        }
+    }
+
+    private List<Object> writeBatch(List<PendingWrite> writes, RedisSerializer<String> keySerializer) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (PendingWrite write : writes) {
+                byte[] rawKey = keySerializer.serialize(write.key());
+                connection.stringCommands().set(rawKey, write.raw(), Expiration.seconds(write.ttlSeconds()),
+                        RedisStringCommands.SetOption.upsert());
+                if (!write.tags().isEmpty()) {
+                    tagIndex.tag(connection, rawKey, write.ttlSeconds(), write.tags());
+                }
+            }
+            return null;
+        });
+    }
+
+    private void record(Result result) {
+        counters[result.ordinal()].increment();
+    }
+
+    private void record(Result result, int count) {
+        counters[result.ordinal()].increment(count);
+    }
+
+    /**
+     * Stops taking writes and lets the flusher drain the queue, waiting up to
+     * shutdown-timeout-ms. The flusher is never interrupted, so a pipeline in progress completes.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        int queuedAtShutdown = queue.size();
+        running = false;
+        flusher.join(Math.max(1, config.getShutdownTimeoutMs()));
+        if (flusher.isAlive()) {
+            log.warn("Write-behind did not drain within {} ms; {} cache entries were not written",
+                    config.getShutdownTimeoutMs(), queue.size());
+        } else {
+            log.info("Write-behind drained {} queued cache entries on shutdown", queuedAtShutdown);
+        }
+    }
+
+    /**
+     * Translates Redis's glob syntax - {@code *}, {@code ?}, {@code [...]} with {@code ^}
+     * negation and ranges, and {@code \\} escapes - into a regex with the same matches.
+     */
+    static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        boolean inClass = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    regex.append(']');
+                } else if (c == '^' && regex.charAt(regex.length() - 1) == '[') {
+                    regex.append('^');
+                } else if (c == '-') {
+                    regex.append('-');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '[' && glob.indexOf(']', i + 1) > i) {
+                inClass = true;
+                regex.append('[');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * A queued write, moving QUEUED -> SENT -> FLUSHED when the flusher takes it, or
+     * QUEUED -> CANCELLED when it is superseded or invalidated first.
+     */
+    private static final class PendingWrite {
+        private static final int QUEUED = 0;
+        private static final int SENT = 1;
+        private static final int CANCELLED = 2;
+
+        private final String key;
+        private final byte[] raw;
+        private final long ttlSeconds;
+        private final Set<String> tags;
+        private final long enqueuedNanos;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CountDownLatch flushed = new CountDownLatch(1);
+
+        PendingWrite(String key, byte[] raw, long ttlSeconds, Set<String> tags, long enqueuedNanos) {
+            this.key = key;
+            this.raw = raw;
+            this.ttlSeconds = ttlSeconds;
+            this.tags = tags;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        String key() {
+            return key;
+        }
+
+        byte[] raw() {
+            return raw;
+        }
+
+        long ttlSeconds() {
+            return ttlSeconds;
+        }
+
+        Set<String> tags() {
+            return tags;
+        }
+
+        long enqueuedNanos() {
+            return enqueuedNanos;
+        }
+
+        /**
+         * @return true when the write will not be sent; false when it already has been
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED) || state.get() == CANCELLED;
+        }
+
+        /**
+         * @return true when the flusher may send the write, i.e. nothing cancelled it first
+         */
+        boolean send() {
+            return state.compareAndSet(QUEUED, SENT);
+        }
+
+        void flushed() {
+            flushed.countDown();
+        }
+
+        boolean awaitFlushed(long timeoutMs) throws InterruptedException {
+            return flushed.await(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    enum Result {
+        /** Reached Redis from the queue. */
+        WRITTEN,
+        /** Dropped from the queue because a newer write or an invalidation replaced it. */
+        SKIPPED,
+        /** The queue stayed full, so the caller wrote synchronously. */
+        SYNC_FALLBACK,
+        /** The pipelined flush failed; the entries are lost and will be reloaded. */
+        FAILED;
+
+        String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
-import java.time.Instant;
 
 @Data
 @NoArgsConstructor
@@ -13,19 +12,20 @@ import java.time.Instant;
 public class CachedItem<T> implements Serializable {
 
     private T value;
-    private Instant createdAt;
+    /** Epoch millis; a primitive so decoding and refresh checks allocate no Instant. */
+    private long createdAtMillis;
     private boolean negative;
 
-    public CachedItem(T value, Instant createdAt) {
+    public CachedItem(T value, long createdAtMillis) {
         this.value = value;
-        this.createdAt = createdAt;
+        this.createdAtMillis = createdAtMillis;
         this.negative = false;
     }
 
     public static <T> CachedItem<T> negative() {
         CachedItem<T> item = new CachedItem<>();
         item.setNegative(true);
-        item.setCreatedAt(Instant.now());
+        item.setCreatedAtMillis(System.currentTimeMillis());
         return item;
     }
 }
@@ -0,0 +1,159 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries a failing loader with decorrelated jitter backoff. It is meant to run inside the
+ * single-flight leader, so however many callers wait on a key, the backing store sees one
+ * retry sequence and every follower shares its final outcome.
+ *
+ * Only failures with a retryable exception anywhere in their cause chain are retried, and
+ * each key may spend at most {@code budget-per-key} retries per budget window; past that a
+ * failure is returned at once, so a key that keeps failing stops generating load.
+ */
+@Slf4j
+@Component
+public class LoaderRetry {
+
+    private static final int MAX_TRACKED_KEYS = 10000;
+
+    private final ThunderingHerdProperties.RetryConfig config;
+    private final List<Class<? extends Throwable>> retryable;
+    private final ConcurrentHashMap<String, Budget> budgets = new ConcurrentHashMap<>();
+    private final Counter[] counters = new Counter[Result.values().length];
+
+    public LoaderRetry(ThunderingHerdProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getRetry();
+        this.retryable = List.copyOf(config.getRetryableExceptions());
+        for (Result result : Result.values()) {
+            counters[result.ordinal()] = Counter.builder("cache.loader.retries")
+                    .description("Loader failures by what the retry policy did with them")
+                    .tag("result", result.tagValue())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the loader, retrying retryable failures up to max-attempts in total.
+     *
+     * @param key the key whose retry budget is spent
+     */
+    public <T> T call(String key, Supplier<? extends T> loader) {
+        long delay = config.getBaseDelayMs();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return loader.get();
+            } catch (RuntimeException e) {
+                if (attempt >= config.getMaxAttempts()) {
+                    record(attempt > 1 ? Result.EXHAUSTED : Result.NOT_RETRIED);
+                    throw e;
+                }
+                if (!isRetryable(e)) {
+                    record(Result.NOT_RETRIED);
+                    throw e;
+                }
+                if (!tryAcquire(key)) {
+                    record(Result.BUDGET_EXHAUSTED);
+                    throw e;
+                }
+
+                // Decorrelated jitter: random between the base and three times the last delay, capped
+                delay = Math.min(config.getMaxDelayMs(),
+                        ThreadLocalRandom.current().nextLong(config.getBaseDelayMs(), Math.max(delay * 3, config.getBaseDelayMs() + 1)));
+                record(Result.RETRIED);
+                log.debug("Loader for key: {} failed (attempt {}), retrying in {}ms", key, attempt, delay);
+                sleep(delay, e);
+            }
+        }
+    }
+
+    boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : retryable) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquire(String key) {
+        long now = System.currentTimeMillis();
+        if (budgets.size() >= MAX_TRACKED_KEYS) {
+            budgets.values().removeIf(budget -> budget.expired(now, config.getBudgetWindowMs()));
+        }
+        return budgets.computeIfAbsent(key, k -> new Budget(now))
+                .tryAcquire(now, config.getBudgetWindowMs(), config.getBudgetPerKey());
+    }
+
+    private static void sleep(long delay, RuntimeException failure) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+
+    private void record(Result result) {
+        counters[result.ordinal()].increment();
+    }
+
+    /**
+     * Retries spent by one key in the current fixed window.
+     */
+    private static final class Budget {
+        private long windowStart;
+        private int used;
+
+        Budget(long windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        synchronized boolean tryAcquire(long now, long windowMs, int limit) {
+            if (now - windowStart >= windowMs) {
+                windowStart = now;
+                used = 0;
+            }
+            if (used >= limit) {
+                return false;
+            }
+            used++;
+            return true;
+        }
+
+        synchronized boolean expired(long now, long windowMs) {
+            return now - windowStart >= windowMs;
+        }
+    }
+
+    enum Result {
+        /** Failed and was retried after a backoff. */
+        RETRIED,
+        /** Failed on the last allowed attempt after at least one retry. */
+        EXHAUSTED,
+        /** Failed with an exception the policy does not retry, or retries are off. */
+        NOT_RETRIED,
+        /** Would have been retried, but the key's retry budget was used up. */
+        BUDGET_EXHAUSTED;
+
+        String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import io.lettuce.core.RedisURI;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.redis.autoconfigure.DataRedisConnectionDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional near cache in front of Redis holding the same serialized bytes Redis does, in
+ * an {@link OffHeapStore}. Copies are served for at most {@code local-cache.ttl-seconds},
+ * which bounds how stale a node can be after another node writes or invalidates a key.
+ * When disabled every call is a no-op and reads always miss.
+ *
+ * With {@code local-cache.tracking} set, Redis client-side caching keeps the tier
+ * consistent instead: only entries read from Redis are kept, each is dropped as soon as
+ * Redis reports the key changed, and the whole tier is dropped, and stops serving, while
+ * the tracking connection is down.
+ */
+@Component
+public class LocalCacheTier implements DisposableBean {
+
+    private final OffHeapStore store;
+    private final long ttlMillis;
+    private final ThunderingHerdProperties.LocalCacheConfig.Tracking trackingMode;
+    private final List<String> trackedPrefixes;
+    private final RedisTracking tracking;
+    // Bumped on every invalidation push, so a read racing one can tell its bytes may be stale
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public LocalCacheTier(ThunderingHerdProperties properties) {
+        this(properties, null);
+    }
+
+    @Autowired
+    public LocalCacheTier(ThunderingHerdProperties properties, DataRedisConnectionDetails connectionDetails) {
+        ThunderingHerdProperties.LocalCacheConfig config = properties.getLocalCache();
+        this.store = config.isEnabled()
+                ? new OffHeapStore(config.getCapacityMb() * 1024 * 1024, config.getMaxEntries(), config.getStripes())
+                : null;
+        this.ttlMillis = config.getTtlSeconds() * 1000;
+        this.trackingMode = config.getTracking();
+        this.trackedPrefixes = config.getTrackingPrefixes();
+
+        if (store == null || trackingMode == ThunderingHerdProperties.LocalCacheConfig.Tracking.OFF) {
+            this.tracking = null;
+        } else if (connectionDetails == null || connectionDetails.getStandalone() == null) {
+            throw new IllegalArgumentException("local-cache.tracking needs a standalone Redis connection");
+        } else {
+            this.tracking = new RedisTracking(redisUri(connectionDetails), trackingMode, trackedPrefixes,
+                    this::onInvalidate);
+        }
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * @return true when Redis tracking invalidates the tier and is currently connected
+     */
+    public boolean isTracking() {
+        return tracking != null && tracking.isActive();
+    }
+
+    /**
+     * @return the cached bytes, or null on a miss or when the tier is disabled
+     */
+    public byte[] get(String key) {
+        return serving() ? store.get(key) : null;
+    }
+
+    byte[] get(CacheKey key) {
+        return serving() ? store.get(key.encoded()) : null;
+    }
+
+    /**
+     * Invalidation count to take before a Redis read whose result goes to {@link #putRead}.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return true when reads that fill the tier must go through {@link #readTracked}, so
+     * Redis tracks the keys they touch
+     */
+    public boolean tracksReads() {
+        return trackingMode == ThunderingHerdProperties.LocalCacheConfig.Tracking.DEFAULT && isTracking();
+    }
+
+    public byte[] readTracked(byte[] rawKey) {
+        return tracking.get(rawKey);
+    }
+
+    /**
+     * Stores bytes just read from Redis, unless an invalidation may have overtaken the read
+     * since {@code stamp} was taken.
+     */
+    public void putRead(String key, byte[] raw, long stamp) {
+        if (store == null) {
+            return;
+        }
+        if (tracking == null) {
+            store.put(key, raw, ttlMillis);
+            return;
+        }
+        if (!tracking.isActive() || !tracked(key)) {
+            return;
+        }
+        store.put(key, raw, ttlMillis);
+        if (invalidations.get() != stamp) {
+            store.remove(key);
+        }
+    }
+
+    /**
+     * Stores bytes just written to Redis with the given TTL, never keeping them longer than Redis will.
+     * Ignored under tracking: only reads are known to be covered by invalidations.
+     */
+    public void put(String key, byte[] raw, long ttlSeconds) {
+        if (store != null && tracking == null) {
+            store.put(key, raw, Math.min(ttlMillis, ttlSeconds * 1000));
+        }
+    }
+
+    public void invalidate(String key) {
+        if (store != null) {
+            store.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    /**
+     * @return invalidation pushes received from Redis, counting a dropped connection as one
+     */
+    public long invalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return the backing store, or null when the tier is disabled
+     */
+    public OffHeapStore store() {
+        return store;
+    }
+
+    @Override
+    public void destroy() {
+        if (tracking != null) {
+            tracking.close();
+        }
+    }
+
+    private boolean serving() {
+        return store != null && (tracking == null || tracking.isActive());
+    }
+
+    /**
+     * In BCAST mode Redis only reports keys under the tracked prefixes; anything else could go stale.
+     */
+    private boolean tracked(String key) {
+        if (trackingMode != ThunderingHerdProperties.LocalCacheConfig.Tracking.BCAST) {
+            return true;
+        }
+        for (String prefix : trackedPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void onInvalidate(List<String> keys) {
+        invalidations.incrementAndGet();
+        if (keys == null) {
+            store.clear();
+            return;
+        }
+        for (String key : keys) {
+            store.remove(key);
+        }
+    }
+
+    private static RedisURI redisUri(DataRedisConnectionDetails redis) {
+        DataRedisConnectionDetails.Standalone standalone = redis.getStandalone();
+        RedisURI.Builder uri = RedisURI.builder()
+                .withHost(standalone.getHost())
+                .withPort(standalone.getPort())
+                .withDatabase(standalone.getDatabase())
+                .withSsl(redis.getSslBundle() != null);
+        if (redis.getUsername() != null) {
+            uri.withAuthentication(redis.getUsername(), redis.getPassword());
+        } else if (redis.getPassword() != null) {
+            uri.withPassword(redis.getPassword().toCharArray());
+        }
+        return uri.build();
+    }
+}
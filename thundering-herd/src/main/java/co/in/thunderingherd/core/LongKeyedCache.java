@@ -0,0 +1,209 @@
+package co.in.thunderingherd.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * In-process cache for primitive long keys, such as database ids. Entries live in striped
+ * open-addressed tables (long keys, long expiry times, object values), so neither a hit nor
+ * a miss boxes the key or builds a String from it, and a hit allocates nothing.
+ *
+ * Misses are coalesced per key through a {@link LongSingleFlight}; the loader's null is kept
+ * as a negative entry for {@code negativeTtlMillis}. Tables never grow: a full stripe makes
+ * room by dropping the first entry at or after the new key's home slot, which approximates
+ * random eviction at no bookkeeping cost.
+ */
+public final class LongKeyedCache<T> {
+
+    private static final int STRIPES = 16;
+    private static final Object NULL_VALUE = new Object();
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongFunction<? extends T> loader;
+    private final LongFunction<T> load = this::load;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongSingleFlight singleFlight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries entries kept before inserts start displacing others, across all stripes
+     */
+    public LongKeyedCache(LongFunction<? extends T> loader, int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        this(loader, maxEntries, ttlMillis, negativeTtlMillis, new LongSingleFlight());
+    }
+
+    /**
+     * @param singleFlight coalesces misses; pass a bounded one to apply admission limits and listeners
+     */
+    public LongKeyedCache(LongFunction<? extends T> loader, int maxEntries, long ttlMillis, long negativeTtlMillis,
+                          LongSingleFlight singleFlight) {
+        this.loader = loader;
+        this.singleFlight = singleFlight;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        int entriesPerStripe = Math.max(16, maxEntries / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(entriesPerStripe);
+        }
+    }
+
+    /**
+     * @return the cached or freshly loaded value, or null when the loader found nothing
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long key) throws Exception {
+        Object value = stripe(key).get(key, System.currentTimeMillis());
+        if (value != null) {
+            hits.increment();
+            return value == NULL_VALUE ? null : (T) value;
+        }
+        misses.increment();
+        return singleFlight.execute(key, load);
+    }
+
+    public void invalidate(long key) {
+        stripe(key).remove(key);
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.count();
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public LongSingleFlight singleFlight() {
+        return singleFlight;
+    }
+
+    private T load(long key) {
+        T value = loader.apply(key);
+        long now = System.currentTimeMillis();
+        if (value == null) {
+            stripe(key).put(key, NULL_VALUE, now + negativeTtlMillis);
+        } else {
+            stripe(key).put(key, value, now + ttlMillis);
+        }
+        return value;
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(int) (LongSingleFlight.mix(key) >>> 60)];
+    }
+
+    private static final class Stripe {
+
+        private final long[] keys;
+        private final long[] expiresAt;
+        private final Object[] values;
+        private final int mask;
+        private final int maxEntries;
+        private int count;
+
+        Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+            // Load factor of at most 0.5 keeps linear probe runs short
+            int tableSize = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+            this.keys = new long[tableSize];
+            this.expiresAt = new long[tableSize];
+            this.values = new Object[tableSize];
+            this.mask = tableSize - 1;
+        }
+
+        synchronized Object get(long key, long nowMillis) {
+            int slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            if (expiresAt[slot] <= nowMillis) {
+                delete(slot);
+                return null;
+            }
+            return values[slot];
+        }
+
+        synchronized void put(long key, Object value, long expiresAtMillis) {
+            int slot = find(key);
+            if (slot < 0) {
+                int home = (int) LongSingleFlight.mix(key) & mask;
+                if (count >= maxEntries) {
+                    int victim = home;
+                    while (values[victim] == null) {
+                        victim = (victim + 1) & mask;
+                    }
+                    delete(victim);
+                }
+                slot = home;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                count++;
+            }
+            values[slot] = value;
+            expiresAt[slot] = expiresAtMillis;
+        }
+
+        synchronized void remove(long key) {
+            int slot = find(key);
+            if (slot >= 0) {
+                delete(slot);
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(values, null);
+            count = 0;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        private int find(long key) {
+            for (int slot = (int) LongSingleFlight.mix(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Backward-shift deletion, as in {@link OffHeapStore}.
+         */
+        private void delete(int slot) {
+            int hole = slot;
+            for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+                int home = (int) LongSingleFlight.mix(keys[next]) & mask;
+                boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+                if (!stays) {
+                    keys[hole] = keys[next];
+                    expiresAt[hole] = expiresAt[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            values[hole] = null;
+            count--;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package co.in.thunderingherd.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * {@link SingleFlight} for primitive long keys. In-flight calls are tracked in striped
+ * open-addressed tables indexed by the key itself, so joining or leading a call never
+ * boxes the key or builds a String from it.
+ *
+ * Admission is bounded the same way as SingleFlight (maxWaitersPerKey followers per call,
+ * maxInFlightKeys keys at once), and the same {@link SingleFlightListener} observes it.
+ * Listeners and rejections see the key as {@code keyPrefix + key}; that String is only
+ * built for a rejection or while a listener is registered. There is no linger window.
+ */
+@Slf4j
+public final class LongSingleFlight {
+
+    private static final int STRIPES = 16;
+    private static final long DEFAULT_TIMEOUT_MS = 10000;
+
+    private final CallTable[] tables = new CallTable[STRIPES];
+    private final String keyPrefix;
+    private final int maxWaitersPerKey;
+    private final int maxInFlightKeys;
+    private final AtomicInteger inFlightKeys = new AtomicInteger();
+    private final LongAdder dedupCount = new LongAdder();
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+    private volatile SingleFlightListener listener = SingleFlightListener.NOOP;
+
+    /**
+     * Unbounded admission.
+     */
+    public LongSingleFlight() {
+        this("", Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param keyPrefix prepended to the key for listeners and rejections, e.g. {@code "product-id:"}
+     */
+    public LongSingleFlight(String keyPrefix, int maxWaitersPerKey, int maxInFlightKeys) {
+        this.keyPrefix = keyPrefix;
+        this.maxWaitersPerKey = maxWaitersPerKey;
+        this.maxInFlightKeys = maxInFlightKeys;
+        for (int i = 0; i < STRIPES; i++) {
+            tables[i] = new CallTable();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(long key, LongFunction<? extends T> fn, long timeout) throws Exception {
+        CallTable table = tables[(int) (mix(key) >>> 60)];
+        SingleFlight.Call call;
+        boolean leader;
+        synchronized (table) {
+            call = table.get(key);
+            leader = call == null;
+            if (leader) {
+                if (!tryAdmit()) {
+                    throw reject(key, SingleFlightRejectedException.Reason.IN_FLIGHT_KEYS);
+                }
+                call = new SingleFlight.Call(Thread.currentThread());
+                table.put(key, call);
+            } else if (call.ledBy(Thread.currentThread())) {
+                throw new IllegalStateException("Re-entrant single-flight call for key: " + keyPrefix + key);
+            } else if (!call.tryJoin(maxWaitersPerKey)) {
+                throw reject(key, SingleFlightRejectedException.Reason.WAITERS);
+            }
+        }
+
+        if (!leader) {
+            dedupCount.increment();
+            long waitStart = System.nanoTime();
+            try {
+                T result = (T) call.await(timeout);
+                if (listener != SingleFlightListener.NOOP) {
+                    listener.onFollowerComplete(keyPrefix + key, System.nanoTime() - waitStart,
+                            SingleFlightListener.Outcome.SUCCESS);
+                }
+                return result;
+            } catch (Exception e) {
+                if (listener != SingleFlightListener.NOOP) {
+                    listener.onFollowerComplete(keyPrefix + key, System.nanoTime() - waitStart,
+                            e instanceof TimeoutException ? SingleFlightListener.Outcome.TIMEOUT
+                                    : SingleFlightListener.Outcome.ERROR);
+                }
+                throw new RuntimeException("Failed to get result from single-flight", e);
+            }
+        }
+
+        executionCount.increment();
+        long started = System.nanoTime();
+        SingleFlightListener.Outcome outcome = SingleFlightListener.Outcome.ERROR;
+        try {
+            T result = fn.apply(key);
+            call.complete(result);
+            outcome = SingleFlightListener.Outcome.SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (table) {
+                table.remove(key);
+            }
+            inFlightKeys.decrementAndGet();
+            if (listener != SingleFlightListener.NOOP) {
+                listener.onLeaderComplete(keyPrefix + key, System.nanoTime() - started, call.followers(), outcome);
+            }
+        }
+    }
+
+    public <T> T execute(long key, LongFunction<? extends T> fn) throws Exception {
+        return execute(key, fn, DEFAULT_TIMEOUT_MS);
+    }
+
+    private boolean tryAdmit() {
+        int current;
+        do {
+            current = inFlightKeys.get();
+            if (current >= maxInFlightKeys) {
+                return false;
+            }
+        } while (!inFlightKeys.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private SingleFlightRejectedException reject(long key, SingleFlightRejectedException.Reason reason) {
+        rejectionCount.increment();
+        String name = keyPrefix + key;
+        listener.onRejected(name, reason);
+        log.debug("Single-flight rejected key: {} ({})", name, reason);
+        return new SingleFlightRejectedException(name, reason);
+    }
+
+    /**
+     * Registers an observer for leader/follower timings; listeners added later run after earlier ones.
+     */
+    public synchronized void addListener(SingleFlightListener added) {
+        listener = SingleFlightListener.composite(listener, added);
+    }
+
+    public int inFlightCount() {
+        return inFlightKeys.get();
+    }
+
+    public SingleFlight.Metrics getMetrics() {
+        long deduplications = dedupCount.sum();
+        long executions = executionCount.sum();
+        long total = executions + deduplications;
+        return new SingleFlight.Metrics(deduplications, executions,
+                total == 0 ? 0.0 : (double) deduplications / total * 100);
+    }
+
+    public long rejectionCount() {
+        return rejectionCount.sum();
+    }
+
+    /**
+     * murmur3 finalizer; the top bits pick the stripe and the low bits the slot.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Open-addressed long to Call map guarded by the owning stripe's monitor. A null call
+     * marks an empty slot, so every long value is a valid key. Grows at half load.
+     */
+    private static final class CallTable {
+
+        private long[] keys = new long[16];
+        private SingleFlight.Call[] calls = new SingleFlight.Call[16];
+        private int size;
+
+        SingleFlight.Call get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = (int) mix(key) & mask; calls[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return calls[slot];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, SingleFlight.Call call) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (calls[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            calls[slot] = call;
+            size++;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (calls[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (calls[slot] == null) {
+                return;
+            }
+            // Backward-shift deletion, as in OffHeapStore
+            int hole = slot;
+            for (int next = (hole + 1) & mask; calls[next] != null; next = (next + 1) & mask) {
+                int home = (int) mix(keys[next]) & mask;
+                boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+                if (!stays) {
+                    keys[hole] = keys[next];
+                    calls[hole] = calls[next];
+                    hole = next;
+                }
+            }
+            calls[hole] = null;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            SingleFlight.Call[] oldCalls = calls;
+            keys = new long[oldKeys.length * 2];
+            calls = new SingleFlight.Call[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCalls[i] != null) {
+                    put(oldKeys[i], oldCalls[i]);
+                }
+            }
+        }
+    }
+}
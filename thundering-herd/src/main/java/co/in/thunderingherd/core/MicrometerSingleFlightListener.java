@@ -0,0 +1,98 @@
+package co.in.thunderingherd.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records SingleFlight fan-in (followers absorbed per leader), follower wait time and
+ * leader load time as Micrometer histograms with SLO buckets, tagged by key namespace
+ * and outcome, plus admission rejections by namespace and reason. Meters are built once per namespace/outcome and cached.
+ */
+public class MicrometerSingleFlightListener implements SingleFlightListener {
+
+    private static final int MAX_NAMESPACES = 64;
+
+    private final MeterRegistry registry;
+    private final Duration[] latencySlos;
+    private final double[] faninSlos;
+    private final ConcurrentHashMap<String, NamespaceMeters> meters = new ConcurrentHashMap<>();
+
+    public MicrometerSingleFlightListener(MeterRegistry registry, List<Duration> latencySlos, List<Double> faninSlos) {
+        this.registry = registry;
+        this.latencySlos = latencySlos.toArray(new Duration[0]);
+        this.faninSlos = faninSlos.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    @Override
+    public void onLeaderComplete(String key, long durationNanos, int followers, Outcome outcome) {
+        NamespaceMeters ns = metersFor(key);
+        ns.fanin.record(followers);
+        ns.leader[outcome.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onFollowerComplete(String key, long waitNanos, Outcome outcome) {
+        metersFor(key).follower[outcome.ordinal()].record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onRejected(String key, SingleFlightRejectedException.Reason reason) {
+        metersFor(key).rejections[reason.ordinal()].increment();
+    }
+
+    private NamespaceMeters metersFor(String key) {
+        String namespace = CacheMetrics.namespaceOf(key);
+        NamespaceMeters ns = meters.get(namespace);
+        if (ns != null) {
+            return ns;
+        }
+        if (meters.size() >= MAX_NAMESPACES) {
+            namespace = CacheMetrics.OVERFLOW_NAMESPACE;
+        }
+        return meters.computeIfAbsent(namespace, NamespaceMeters::new);
+    }
+
+    private final class NamespaceMeters {
+        private final DistributionSummary fanin;
+        private final Timer[] leader = new Timer[Outcome.values().length];
+        private final Timer[] follower = new Timer[Outcome.values().length];
+        private final Counter[] rejections = new Counter[SingleFlightRejectedException.Reason.values().length];
+
+        NamespaceMeters(String namespace) {
+            fanin = DistributionSummary.builder("singleflight.fanin")
+                    .description("Followers absorbed by each single-flight leader")
+                    .baseUnit("followers")
+                    .tag("namespace", namespace)
+                    .serviceLevelObjectives(faninSlos)
+                    .register(registry);
+            for (Outcome outcome : Outcome.values()) {
+                leader[outcome.ordinal()] = Timer.builder("singleflight.leader.duration")
+                        .description("Time the single-flight leader spent in the loader")
+                        .tag("namespace", namespace)
+                        .tag("outcome", outcome.tagValue())
+                        .serviceLevelObjectives(latencySlos)
+                        .register(registry);
+                follower[outcome.ordinal()] = Timer.builder("singleflight.follower.wait")
+                        .description("Time followers spent waiting for the leader's result")
+                        .tag("namespace", namespace)
+                        .tag("outcome", outcome.tagValue())
+                        .serviceLevelObjectives(latencySlos)
+                        .register(registry);
+            }
+            for (SingleFlightRejectedException.Reason reason : SingleFlightRejectedException.Reason.values()) {
+                rejections[reason.ordinal()] = Counter.builder("singleflight.rejections")
+                        .description("Callers turned away by a single-flight admission limit")
+                        .tag("namespace", namespace)
+                        .tag("reason", reason.tagValue())
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-namespace generation numbers that make a whole namespace invalid in O(1): the
+ * stored key carries its namespace's generation, so bumping the generation orphans every
+ * entry written under the old one, and those expire through their TTL.
+ *
+ * Generations live in one Redis hash. This node keeps a copy, re-read every
+ * {@code cache.generation-refresh-ms}, so keys are mapped without a round trip; another
+ * node's bump takes effect here within that interval.
+ *
+ * The generation goes right after the namespace, {@code product:#3:ABC}, so prefixes and
+ * patterns on the namespace still match. Generation 0 leaves keys unchanged, so namespaces
+ * that were never bumped keep their plain keys; a key that itself contains {@code #} is
+ * always written in the generation form, so no plain key can be mistaken for a mapped one.
+ */
+@Slf4j
+@Component
+public class NamespaceGenerations implements DisposableBean {
+
+    static final String GENERATIONS_KEY = "thundering-herd:generations";
+    private static final char SEPARATOR = '#';
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final byte[] rawGenerationsKey = GENERATIONS_KEY.getBytes(StandardCharsets.UTF_8);
+    private final ScheduledExecutorService refresher;
+    // Only namespaces with a non-zero generation; replaced wholesale, never modified
+    private volatile Generation[] generations = new Generation[0];
+
+    public NamespaceGenerations(RedisTemplate<String, Object> redisTemplate, ThunderingHerdProperties properties) {
+        this.redisTemplate = redisTemplate;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Could not read namespace generations; assuming none were bumped yet", e);
+        }
+
+        long refreshMs = properties.getCache().getGenerationRefreshMs();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "namespace-generations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.debug("Namespace generation refresh failed; keeping the last known values", e);
+            }
+        }, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the key entries are stored under; the same instance while its namespace is at
+     * generation 0, unless the key contains {@code #}
+     */
+    public String keyFor(String key) {
+        Generation generation = find(key);
+        if (generation != null) {
+            return generation.map(key);
+        }
+        return key.indexOf(SEPARATOR) < 0 ? key : Generation.zero(key).map(key);
+    }
+
+    /**
+     * Same as {@link #keyFor(String)}. The mapped key is remembered on the key for its
+     * generation, so a key instance that is looked up repeatedly maps without allocating.
+     */
+    public CacheKey keyFor(CacheKey key) {
+        Generation generation = find(key.name());
+        if (generation == null) {
+            if (key.name().indexOf(SEPARATOR) < 0) {
+                return key;
+            }
+            generation = Generation.zero(key.name());
+        }
+        CacheKey.Mapped mapped = key.mapped;
+        if (mapped != null && mapped.generation() == generation.value && mapped.namespace().equals(generation.namespace)) {
+            return mapped.key();
+        }
+        CacheKey stored = CacheKey.of(generation.map(key.name()));
+        key.mapped = new CacheKey.Mapped(generation.namespace, generation.value, stored);
+        return stored;
+    }
+
+    /**
+     * @return the namespace's current generation as known to this node
+     */
+    public long generation(String key) {
+        Generation generation = find(key);
+        return generation == null ? 0 : generation.value;
+    }
+
+    private Generation find(String key) {
+        for (Generation generation : generations) {
+            if (generation.matches(key)) {
+                return generation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the namespace to a new generation in Redis, making this node use it at once.
+     *
+     * @return the new generation
+     */
+    public synchronized long bump(String namespace) {
+        byte[] field = namespace.getBytes(StandardCharsets.UTF_8);
+        Long bumped = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.hashCommands().hIncrBy(rawGenerationsKey, field, 1));
+        long value = bumped == null ? 0 : bumped;
+
+        List<Generation> updated = new ArrayList<>(List.of(generations));
+        updated.removeIf(generation -> generation.namespace.equals(namespace));
+        updated.add(new Generation(namespace, value));
+        generations = updated.toArray(Generation[]::new);
+        return value;
+    }
+
+    /**
+     * Replaces the local copy with what Redis holds. Synchronized with {@link #bump} so a
+     * read taken before a local bump cannot roll it back; a hash lost with the rest of
+     * Redis's data puts every namespace back to generation 0.
+     */
+    private synchronized void refresh() {
+        Map<byte[], byte[]> stored = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                connection.hashCommands().hGetAll(rawGenerationsKey));
+        List<Generation> read = new ArrayList<>();
+        if (stored != null) {
+            stored.forEach((field, value) -> read.add(new Generation(new String(field, StandardCharsets.UTF_8),
+                    Long.parseLong(new String(value, StandardCharsets.US_ASCII)))));
+        }
+        read.removeIf(generation -> generation.value == 0);
+        generations = read.toArray(Generation[]::new);
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    private record Generation(String namespace, long value, String prefix, int namespaceLength) {
+
+        Generation(String namespace, long value) {
+            this(namespace, value, storedPrefix(namespace, value), prefixLength(namespace));
+        }
+
+        static Generation zero(String key) {
+            return new Generation(CacheMetrics.namespaceOf(key), 0);
+        }
+
+        /**
+         * {@code namespace:#gen:rest}; keys in the default namespace become {@code #gen:key}.
+         */
+        String map(String key) {
+            return prefix.concat(key.substring(namespaceLength));
+        }
+
+        private static String storedPrefix(String namespace, long value) {
+            return namespace.equals(CacheMetrics.DEFAULT_NAMESPACE)
+                    ? SEPARATOR + Long.toString(value) + ':'
+                    : namespace + ':' + SEPARATOR + value + ':';
+        }
+
+        private static int prefixLength(String namespace) {
+            return namespace.equals(CacheMetrics.DEFAULT_NAMESPACE) ? 0 : namespace.length() + 1;
+        }
+
+        /**
+         * Same namespace rule as {@link CacheMetrics#namespaceOf}, without building a substring.
+         */
+        boolean matches(String key) {
+            if (namespace.equals(CacheMetrics.DEFAULT_NAMESPACE)) {
+                return key.indexOf(':') <= 0;
+            }
+            return key.length() > namespace.length()
+                    && key.charAt(namespace.length()) == ':'
+                    && key.startsWith(namespace);
+        }
+    }
+}
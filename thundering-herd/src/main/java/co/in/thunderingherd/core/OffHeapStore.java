@@ -0,0 +1,340 @@
+package co.in.thunderingherd.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local key/value store that keeps serialized entries in direct buffers, so a large local
+ * tier adds almost nothing for the garbage collector to trace: the only heap objects are a
+ * few slab buffers and two long[] index tables per stripe, whatever the number of entries.
+ *
+ * Keys are spread over independently locked stripes. Each stripe appends entries to a ring
+ * of slabs and indexes them with an open-addressed table from key hash to slab offset.
+ * When the current slab is full, or the stripe reaches its entry limit, the oldest slab is
+ * dropped as a whole (FIFO eviction), which keeps memory use within the cap without any
+ * per-entry bookkeeping. Overwritten and removed entries hold their bytes until their slab
+ * is recycled.
+ *
+ * Slabs are allocated on first use, so the cap is reserved lazily; it counts against
+ * {@code -XX:MaxDirectMemorySize}.
+ */
+public final class OffHeapStore {
+
+    // hash, expiresAtMillis, keyLength, valueLength
+    private static final int HEADER_BYTES = 24;
+    private static final int SLABS_PER_STRIPE = 8;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final long capacityBytes;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacityBytes total off-heap bytes across all slabs
+     * @param maxEntries    entries kept before the oldest slab is evicted, across all stripes
+     * @param stripeCount   number of independently locked stripes; a power of two
+     */
+    public OffHeapStore(long capacityBytes, int maxEntries, int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two: " + stripeCount);
+        }
+        long slabBytes = capacityBytes / stripeCount / SLABS_PER_STRIPE;
+        if (slabBytes < 4096 || slabBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacityBytes gives unusable slabs of " + slabBytes + " bytes");
+        }
+
+        this.capacityBytes = slabBytes * SLABS_PER_STRIPE * stripeCount;
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new Stripe[stripeCount];
+        int entriesPerStripe = Math.max(16, maxEntries / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe((int) slabBytes, entriesPerStripe);
+        }
+    }
+
+    /**
+     * @return false when the entry is larger than a slab and was not stored
+     */
+    public boolean put(String key, byte[] value, long ttlMillis) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        return stripe(hash).put(hash, keyBytes, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * @return a copy of the stored bytes, or null when the key is absent or expired
+     */
+    public byte[] get(String key) {
+        return get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as {@link #get(String)} for a key already encoded as UTF-8.
+     */
+    public byte[] get(byte[] keyBytes) {
+        long hash = hash(keyBytes);
+        return stripe(hash).get(hash, keyBytes, System.currentTimeMillis());
+    }
+
+    public boolean remove(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        return stripe(hash).remove(hash, keyBytes);
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.count();
+        }
+        return size;
+    }
+
+    /**
+     * Bytes currently appended to slabs, including entries that were overwritten or removed
+     * but whose slab has not been recycled yet.
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Stripe stripe : stripes) {
+            used += stripe.usedBytes();
+        }
+        return used;
+    }
+
+    public long capacityBytes() {
+        return capacityBytes;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> 40) & stripeMask];
+    }
+
+    /**
+     * FNV-1a with a murmur finalizer so the low bits used for the index are well mixed.
+     * Never 0, which marks an empty index slot.
+     */
+    static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private final class Stripe {
+
+        private final ByteBuffer[] slabs = new ByteBuffer[SLABS_PER_STRIPE];
+        private final int[] slabEnd = new int[SLABS_PER_STRIPE];
+        private final int slabBytes;
+        private final int maxEntries;
+        private final long[] hashes;
+        private final long[] locations;
+        private final int mask;
+        private int current;
+        private int count;
+
+        Stripe(int slabBytes, int maxEntries) {
+            this.slabBytes = slabBytes;
+            this.maxEntries = maxEntries;
+            // Load factor of at most 0.5 keeps linear probe runs short
+            int tableSize = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+            this.hashes = new long[tableSize];
+            this.locations = new long[tableSize];
+            this.mask = tableSize - 1;
+        }
+
+        synchronized boolean put(long hash, byte[] key, byte[] value, long expiresAtMillis) {
+            int size = HEADER_BYTES + key.length + value.length;
+            if (size > slabBytes) {
+                return false;
+            }
+
+            int slot = find(hash, key);
+            if (slot < 0 && count >= maxEntries) {
+                evictOldest();
+            }
+            if (slabEnd[current] + size > slabBytes) {
+                current = (current + 1) % SLABS_PER_STRIPE;
+                evict(current);
+            }
+            // Either eviction may have dropped the entry being replaced
+            slot = find(hash, key);
+
+            ByteBuffer slab = slab(current);
+            int offset = slabEnd[current];
+            slab.putLong(offset, hash);
+            slab.putLong(offset + 8, expiresAtMillis);
+            slab.putInt(offset + 16, key.length);
+            slab.putInt(offset + 20, value.length);
+            slab.put(offset + HEADER_BYTES, key);
+            slab.put(offset + HEADER_BYTES + key.length, value);
+            slabEnd[current] = offset + size;
+
+            long location = ((long) current << 32) | offset;
+            if (slot >= 0) {
+                locations[slot] = location;
+            } else {
+                insert(hash, location);
+            }
+            return true;
+        }
+
+        synchronized byte[] get(long hash, byte[] key, long nowMillis) {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer slab = slabs[(int) (locations[slot] >>> 32)];
+            int offset = (int) locations[slot];
+            if (slab.getLong(offset + 8) <= nowMillis) {
+                delete(slot);
+                return null;
+            }
+            byte[] value = new byte[slab.getInt(offset + 20)];
+            slab.get(offset + HEADER_BYTES + key.length, value);
+            return value;
+        }
+
+        synchronized boolean remove(long hash, byte[] key) {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return false;
+            }
+            delete(slot);
+            return true;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(hashes, 0);
+            Arrays.fill(locations, 0);
+            Arrays.fill(slabEnd, 0);
+            count = 0;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long usedBytes() {
+            long used = 0;
+            for (int end : slabEnd) {
+                used += end;
+            }
+            return used;
+        }
+
+        private ByteBuffer slab(int index) {
+            if (slabs[index] == null) {
+                slabs[index] = ByteBuffer.allocateDirect(slabBytes);
+            }
+            return slabs[index];
+        }
+
+        private int find(long hash, byte[] key) {
+            for (int slot = (int) hash & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && keyMatches(locations[slot], key)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private boolean keyMatches(long location, byte[] key) {
+            ByteBuffer slab = slabs[(int) (location >>> 32)];
+            int offset = (int) location;
+            if (slab.getInt(offset + 16) != key.length) {
+                return false;
+            }
+            // Absolute reads, so a probe allocates no views over the slab or the key
+            int start = offset + HEADER_BYTES;
+            for (int i = 0; i < key.length; i++) {
+                if (slab.get(start + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void insert(long hash, long location) {
+            int slot = (int) hash & mask;
+            while (hashes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            locations[slot] = location;
+            count++;
+        }
+
+        /**
+         * Backward-shift deletion: later entries of the probe run move up so lookups never
+         * need tombstones.
+         */
+        private void delete(int slot) {
+            int hole = slot;
+            for (int next = (hole + 1) & mask; hashes[next] != 0; next = (next + 1) & mask) {
+                int home = (int) hashes[next] & mask;
+                boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+                if (!stays) {
+                    hashes[hole] = hashes[next];
+                    locations[hole] = locations[next];
+                    hole = next;
+                }
+            }
+            hashes[hole] = 0;
+            locations[hole] = 0;
+            count--;
+        }
+
+        private void evictOldest() {
+            for (int i = 1; i < SLABS_PER_STRIPE; i++) {
+                int slab = (current + i) % SLABS_PER_STRIPE;
+                if (slabEnd[slab] > 0) {
+                    evict(slab);
+                    return;
+                }
+            }
+            // Everything lives in the current slab
+            evict(current);
+        }
+
+        /**
+         * Drops every entry the index still points at in this slab, then empties it.
+         */
+        private void evict(int index) {
+            ByteBuffer slab = slabs[index];
+            int end = slabEnd[index];
+            for (int offset = 0; offset < end; ) {
+                long hash = slab.getLong(offset);
+                long location = ((long) index << 32) | offset;
+                for (int slot = (int) hash & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+                    if (locations[slot] == location) {
+                        delete(slot);
+                        evictions.increment();
+                        break;
+                    }
+                }
+                offset += HEADER_BYTES + slab.getInt(offset + 16) + slab.getInt(offset + 20);
+            }
+            slabEnd[index] = 0;
+        }
+    }
+}
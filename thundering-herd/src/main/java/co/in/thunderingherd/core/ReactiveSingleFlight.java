@@ -0,0 +1,104 @@
+package co.in.thunderingherd.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@link SingleFlight}: the first subscriber for a key starts
+ * the supplied Mono and every concurrent subscriber shares that one execution, so no
+ * thread is parked while waiting on the leader.
+ */
+@Slf4j
+@Component
+public class ReactiveSingleFlight {
+
+    private final ConcurrentHashMap<String, Call> calls = new ConcurrentHashMap<>();
+    private final LongAdder dedupCount = new LongAdder();
+    private final LongAdder executionCount = new LongAdder();
+
+    /**
+     * Shares one execution of fn per key among concurrent subscribers. Followers give up
+     * after the timeout; the leader's execution carries on and still completes for the others.
+     */
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> fn, Duration timeout) {
+        return execute(key, fn, timeout, leader -> {});
+    }
+
+    /**
+     * Same as {@link #execute(String, Supplier, Duration)}, and tells onRole on subscription
+     * whether this subscriber leads the execution (true) or shares another's (false). The
+     * leader is whoever wins the call, which need not be the caller whose fn was installed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> fn, Duration timeout, Consumer<Boolean> onRole) {
+        return Mono.defer(() -> {
+            // The lock-free get serves the common case; computeIfAbsent builds the Mono chain
+            // only in the caller that installs it, so losing a race allocates nothing
+            Call call = calls.get(key);
+            if (call == null) {
+                call = calls.computeIfAbsent(key, k -> new Call(k, fn));
+            }
+            boolean leader = call.lead();
+            onRole.accept(leader);
+            if (leader) {
+                executionCount.increment();
+                log.debug("Executing request for key: {}", key);
+                return (Mono<T>) call.shared;
+            }
+            dedupCount.increment();
+            log.debug("Request deduplicated for key: {}", key);
+            return (Mono<T>) call.shared.timeout(timeout);
+        });
+    }
+
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> fn) {
+        return execute(key, fn, Duration.ofSeconds(10));
+    }
+
+    public int inFlightCount() {
+        return calls.size();
+    }
+
+    public SingleFlight.Metrics getMetrics() {
+        long deduplications = dedupCount.sum();
+        long executions = executionCount.sum();
+        long total = executions + deduplications;
+        return new SingleFlight.Metrics(deduplications, executions,
+                total == 0 ? 0.0 : (double) deduplications / total * 100);
+    }
+
+    public void resetMetrics() {
+        dedupCount.reset();
+        executionCount.reset();
+    }
+
+    private final class Call {
+        private final Mono<Object> shared;
+        private final AtomicBoolean led = new AtomicBoolean();
+
+        <T> Call(String key, Supplier<Mono<T>> fn) {
+            // cache() replays the single result to every subscriber; the entry is dropped as
+            // soon as the execution terminates so later callers start a fresh one
+            this.shared = Mono.defer(fn)
+                    .cast(Object.class)
+                    .doFinally(signal -> calls.remove(key, this))
+                    .cache();
+        }
+
+        /**
+         * @return true for the first subscriber only, which runs the call without the
+         * followers' timeout
+         */
+        boolean lead() {
+            return !led.get() && led.compareAndSet(false, true);
+        }
+    }
+}
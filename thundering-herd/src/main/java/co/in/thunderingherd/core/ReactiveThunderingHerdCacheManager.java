@@ -0,0 +1,248 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reactive counterpart of {@link ThunderingHerdCacheManager} over the same Redis entries
+ * (JSON CachedItem values, jittered TTLs, negative entries), so both paths can serve and
+ * refresh the same keys. A not-found value is an empty Mono. Blocking loaders run on a
+ * bounded scheduler so a slow database cannot tie up the event loop.
+ *
+ * Lookups go through the same tiers as the blocking manager: the local tier, then Redis,
+ * then writes the blocking side has queued with write-behind but not yet flushed. Entries
+ * are read and written as raw bytes, so they can be shared with the local tier.
+ */
+@Slf4j
+@Component
+public class ReactiveThunderingHerdCacheManager implements DisposableBean {
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ReactiveSingleFlight singleFlight;
+    private final ThunderingHerdProperties properties;
+    private final CacheMetrics cacheMetrics;
+    private final CacheTimers cacheTimers;
+    private final NamespaceGenerations generations;
+    private final LocalCacheTier localCacheTier;
+    private final CacheWriteBehind writeBehind;
+    private final RedisSerializationContext<String, Object> serialization;
+    private final Scheduler loaderScheduler;
+
+    public ReactiveThunderingHerdCacheManager(ReactiveRedisTemplate<String, Object> redisTemplate,
+                                              ReactiveSingleFlight singleFlight,
+                                              ThunderingHerdProperties properties,
+                                              CacheMetrics cacheMetrics,
+                                              CacheTimers cacheTimers,
+                                              NamespaceGenerations generations,
+                                              LocalCacheTier localCacheTier,
+                                              CacheWriteBehind writeBehind) {
+        this.redisTemplate = redisTemplate;
+        this.singleFlight = singleFlight;
+        this.properties = properties;
+        this.cacheMetrics = cacheMetrics;
+        this.cacheTimers = cacheTimers;
+        this.generations = generations;
+        this.localCacheTier = localCacheTier;
+        this.writeBehind = writeBehind;
+        this.serialization = redisTemplate.getSerializationContext();
+        ThunderingHerdProperties.ReactiveConfig config = properties.getReactive();
+        this.loaderScheduler = Schedulers.newBoundedElastic(
+                config.getLoaderThreads(), config.getLoaderQueueSize(), "herd-loader");
+    }
+
+    /**
+     * Looks up a key whose loader blocks (JDBC, JPA); the loader is moved onto the bounded
+     * loader scheduler. A null result is negatively cached.
+     */
+    public <T> Mono<T> getBlocking(String key, Callable<T> loader, long ttlSeconds) {
+        return get(key, Mono.fromCallable(loader).subscribeOn(loaderScheduler), ttlSeconds);
+    }
+
+    /**
+     * Looks up a key with a non-blocking loader, subscribed at most once per key at a time.
+     * An empty loader result is negatively cached.
+     */
+    public <T> Mono<T> get(String key, Mono<T> loader, long ttlSeconds) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            String stored = generations.keyFor(key);
+            return this.<T>getFromCache(stored).flatMap(cached -> {
+                if (cached.item() == null) {
+                    cacheMetrics.record(stored, CacheMetrics.Tier.MISS);
+                    boolean[] led = new boolean[1];
+                    return singleFlight.execute(stored, () -> load(stored, loader, ttlSeconds),
+                                    Duration.ofMillis(properties.getSingleflight().getTimeout()), leader -> led[0] = leader)
+                            .doOnSuccess(value -> cacheTimers.recordLookup(
+                                    led[0] ? CacheTimers.Outcome.LOADED : CacheTimers.Outcome.COALESCED, started));
+                }
+
+                CachedItem<T> item = cached.item();
+                if (item.isNegative()) {
+                    cacheMetrics.record(stored, CacheMetrics.Tier.NEGATIVE_HIT);
+                    cacheTimers.recordLookup(CacheTimers.Outcome.NEGATIVE_HIT, started);
+                    return Mono.empty();
+                }
+
+                cacheMetrics.record(stored, cached.local() ? CacheMetrics.Tier.L1_HIT : CacheMetrics.Tier.REDIS_HIT);
+                if (shouldRefreshEarly(item, ttlSeconds)) {
+                    cacheMetrics.record(stored, CacheMetrics.Tier.EARLY_REFRESH);
+                    load(stored, loader, ttlSeconds).subscribe(
+                            value -> log.debug("Background refresh completed for key: {}", stored),
+                            e -> log.warn("Background refresh failed for key: {}", stored, e));
+                }
+                cacheTimers.recordLookup(cached.local() ? CacheTimers.Outcome.L1_HIT : CacheTimers.Outcome.REDIS_HIT,
+                        started);
+                return Mono.justOrEmpty(item.getValue());
+            }).doOnError(e -> cacheTimers.recordLookup(CacheTimers.Outcome.ERROR, started));
+        });
+    }
+
+    /**
+     * Cancels the key's queued write-behind entry, deletes it from Redis and drops the local copy.
+     */
+    public Mono<Boolean> invalidate(String key) {
+        String stored = generations.keyFor(key);
+        // Cancelling waits out a write already being flushed, so it stays off the event loop
+        Mono<Void> cancelQueued = writeBehind.isEnabled()
+                ? Mono.<Void>fromRunnable(() -> writeBehind.cancel(stored)).subscribeOn(loaderScheduler)
+                : Mono.empty();
+        return cancelQueued
+                .then(redisTemplate.delete(stored))
+                .map(deleted -> deleted > 0)
+                .doFinally(signal -> localCacheTier.invalidate(stored));
+    }
+
+    private <T> Mono<T> load(String key, Mono<T> loader, long ttlSeconds) {
+        return loader
+                .flatMap(value -> setCache(key, new CachedItem<>(value, System.currentTimeMillis()), addJitter(ttlSeconds))
+                        .thenReturn(value))
+                .switchIfEmpty(Mono.defer(() -> setCache(key, CachedItem.negative(),
+                        properties.getCache().getNegativeCacheTtl()).then(Mono.empty())));
+    }
+
+    /**
+     * Reads the local tier, then Redis, then pending write-behind entries. Redis errors
+     * degrade to a miss, as in the blocking manager.
+     */
+    private <T> Mono<Lookup<T>> getFromCache(String key) {
+        byte[] local = localCacheTier.get(key);
+        if (local != null) {
+            CachedItem<T> item = decode(key, local);
+            if (item != null) {
+                return Mono.just(new Lookup<>(item, true));
+            }
+        }
+
+        // Under default tracking only reads on the tracking connection may fill the tier
+        boolean fillLocal = localCacheTier.isEnabled() && !localCacheTier.tracksReads();
+        long stamp = localCacheTier.stamp();
+        long started = System.nanoTime();
+        ByteBuffer rawKey = serialization.getKeySerializationPair().write(key);
+        return redisTemplate.execute(connection -> connection.stringCommands().get(rawKey))
+                .next()
+                .doOnTerminate(() -> cacheTimers.recordRedis(CacheTimers.RedisOp.GET, started))
+                .map(buffer -> {
+                    byte[] raw = bytes(buffer);
+                    if (fillLocal) {
+                        localCacheTier.putRead(key, raw, stamp);
+                    }
+                    return raw;
+                })
+                .onErrorResume(e -> {
+                    log.error("Error getting from cache: {}", key, e);
+                    return Mono.empty();
+                })
+                // Loaded by the blocking manager, but still queued for Redis
+                .switchIfEmpty(Mono.fromSupplier(() -> writeBehind.pending(key)))
+                .map(raw -> new Lookup<>(this.<T>decode(key, raw), false))
+                .defaultIfEmpty(new Lookup<>(null, false));
+    }
+
+    /**
+     * @return the decoded entry, or null when it cannot be decoded
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CachedItem<T> decode(String key, byte[] raw) {
+        try {
+            long started = System.nanoTime();
+            Object value = serialization.getValueSerializationPair().read(ByteBuffer.wrap(raw));
+            cacheTimers.recordCodec(CacheTimers.CodecOp.DECODE, started);
+            if (value == null) {
+                return null;
+            }
+            return value instanceof CachedItem
+                    ? (CachedItem<T>) value
+                    : new CachedItem<>((T) value, System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Error decoding cache entry: {}", key, e);
+            return null;
+        }
+    }
+
+    private Mono<Void> setCache(String key, CachedItem<?> item, long ttlSeconds) {
+        byte[] raw;
+        try {
+            long encodeStarted = System.nanoTime();
+            raw = bytes(serialization.getValueSerializationPair().write(item));
+            cacheTimers.recordCodec(CacheTimers.CodecOp.ENCODE, encodeStarted);
+        } catch (Exception e) {
+            log.error("Error encoding cache entry: {}", key, e);
+            return Mono.empty();
+        }
+        ByteBuffer rawKey = serialization.getKeySerializationPair().write(key);
+        long started = System.nanoTime();
+        return redisTemplate.execute(connection -> connection.stringCommands().set(rawKey, ByteBuffer.wrap(raw),
+                        Expiration.seconds(ttlSeconds), RedisStringCommands.SetOption.upsert()))
+                .next()
+                .doOnTerminate(() -> cacheTimers.recordRedis(CacheTimers.RedisOp.SET, started))
+                .doOnSuccess(written -> localCacheTier.put(key, raw, ttlSeconds))
+                .doOnError(e -> log.error("Error setting cache: {}", key, e))
+                .onErrorResume(e -> Mono.just(false))
+                .then();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private boolean shouldRefreshEarly(CachedItem<?> item, long ttl) {
+        long age = (System.currentTimeMillis() - item.getCreatedAtMillis()) / 1000;
+        double probability = properties.getCache().getBeta() * ((double) age / ttl);
+        return ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    private long addJitter(long ttl) {
+        double jitterPercent = properties.getCache().getJitterPercentage() / 100.0;
+        long jitterRange = (long) (ttl * jitterPercent);
+        long jitter = jitterRange == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterRange * 2) - jitterRange;
+        return Math.max(1, ttl + jitter);
+    }
+
+    /**
+     * @param item  the entry, or null on a miss
+     * @param local true when it came from the local tier
+     */
+    private record Lookup<T>(CachedItem<T> item, boolean local) {
+    }
+
+    @Override
+    public void destroy() {
+        loaderScheduler.dispose();
+    }
+}
@@ -0,0 +1,167 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A dedicated RESP3 connection with server-assisted client tracking switched on, turning
+ * Redis invalidation pushes into callbacks.
+ *
+ * In DEFAULT mode Redis only reports keys read on this connection, so reads meant to fill
+ * the local tier must go through {@link #get}. In BCAST mode it reports every modified key
+ * under the configured prefixes, whoever read or wrote it.
+ *
+ * Pushes are lost while the connection is down, so a disconnect reports everything as
+ * invalidated and tracking is inactive until it has been re-enabled on the new connection.
+ * The first connection is opened in the background and retried until Redis answers, so an
+ * unreachable Redis leaves tracking inactive rather than failing startup.
+ */
+@Slf4j
+final class RedisTracking implements AutoCloseable {
+
+    private static final long MIN_RETRY_MS = 500;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    private final RedisClient client;
+    private final ThunderingHerdProperties.LocalCacheConfig.Tracking mode;
+    private final ScheduledExecutorService connector;
+    private final TrackingArgs trackingArgs;
+    private final Consumer<List<String>> onInvalidate;
+    private volatile StatefulRedisConnection<byte[], byte[]> connection;
+    private volatile boolean active;
+    private volatile boolean closed;
+
+    /**
+     * @param onInvalidate called with the invalidated keys, or with null when every key must be dropped
+     */
+    RedisTracking(RedisURI uri, ThunderingHerdProperties.LocalCacheConfig.Tracking mode, List<String> prefixes,
+                  Consumer<List<String>> onInvalidate) {
+        this.onInvalidate = onInvalidate;
+        this.mode = mode;
+        this.trackingArgs = mode == ThunderingHerdProperties.LocalCacheConfig.Tracking.BCAST
+                ? TrackingArgs.Builder.enabled().bcast().prefixes(prefixes.toArray(String[]::new))
+                : TrackingArgs.Builder.enabled();
+
+        this.client = RedisClient.create(uri);
+        client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP3).build());
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> channel, SocketAddress address) {
+                // The first connect is handled in connect(); this re-enables tracking after a reconnect
+                if (connection != null) {
+                    enableTracking();
+                }
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> channel) {
+                active = false;
+                log.warn("Redis tracking connection lost; dropping the local tier");
+                onInvalidate.accept(null);
+            }
+        });
+
+        this.connector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-tracking-connect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connector.execute(() -> connect(MIN_RETRY_MS));
+    }
+
+    private void connect(long retryMs) {
+        if (closed) {
+            return;
+        }
+        StatefulRedisConnection<byte[], byte[]> connected = null;
+        try {
+            connected = client.connect(ByteArrayCodec.INSTANCE);
+            connected.addListener(this::onPush);
+            connected.sync().clientTracking(trackingArgs);
+        } catch (RuntimeException e) {
+            if (connected != null) {
+                connected.closeAsync();
+            }
+            log.warn("Could not enable Redis client tracking, retrying in {} ms: {}", retryMs, e.getMessage());
+            connector.schedule(() -> connect(Math.min(retryMs * 2, MAX_RETRY_MS)), retryMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                connected.close();
+                return;
+            }
+            this.connection = connected;
+            this.active = true;
+        }
+        log.info("Redis client tracking enabled in {} mode", mode);
+    }
+
+    /**
+     * @return true while invalidations are being received
+     */
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * GET on the tracked connection, so in DEFAULT mode Redis reports later changes to the key.
+     * Only valid while {@link #isActive}.
+     */
+    byte[] get(byte[] rawKey) {
+        return connection.sync().get(rawKey);
+    }
+
+    private void enableTracking() {
+        connection.async().clientTracking(trackingArgs).whenComplete((ok, error) -> {
+            if (error != null) {
+                log.error("Could not re-enable Redis client tracking; the local tier stays off", error);
+            } else {
+                onInvalidate.accept(null);
+                active = true;
+                log.info("Redis client tracking re-enabled after reconnect");
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onPush(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        // [invalidate, keys], with null keys when the server flushed its databases
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        onInvalidate.accept(content.size() > 1 ? (List<String>) content.get(1) : null);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            active = false;
+        }
+        connector.shutdownNow();
+        if (connection != null) {
+            connection.close();
+        }
+        client.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+package co.in.thunderingherd.core;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A pre-rendered response body in the form it is stored in Redis: a fixed binary header
+ * (format, flags, creation time, ETag) followed by the body bytes. Decoding only reads the
+ * header, so the body is written out of the very buffer Redis returned, with no entity
+ * materialization or re-serialization on a hit.
+ */
+public final class RenderedBody {
+
+    private static final byte FORMAT = 1;
+    private static final byte FLAG_NEGATIVE = 1;
+    // format (1) + flags (1) + createdAt millis (8) + etag length (2)
+    private static final int FIXED_HEADER = 12;
+    private static final int MAX_ETAG_LENGTH = 64;
+    /** Bytes to read from the start of an envelope to be sure of covering the whole header. */
+    static final int HEADER_PROBE_LENGTH = FIXED_HEADER + MAX_ETAG_LENGTH;
+
+    private final byte[] buffer;
+    private final int bodyOffset;
+    private final long createdAtMillis;
+    private final boolean negative;
+    private final String etag;
+
+    private RenderedBody(byte[] buffer, int bodyOffset, long createdAtMillis, boolean negative, String etag) {
+        this.buffer = buffer;
+        this.bodyOffset = bodyOffset;
+        this.createdAtMillis = createdAtMillis;
+        this.negative = negative;
+        this.etag = etag;
+    }
+
+    /**
+     * Wraps a freshly rendered body, computing its strong ETag from the content.
+     */
+    public static RenderedBody of(byte[] body) {
+        String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        return create(body, System.currentTimeMillis(), false, etag);
+    }
+
+    static RenderedBody negative() {
+        return create(new byte[0], System.currentTimeMillis(), true, "");
+    }
+
+    private static RenderedBody create(byte[] body, long createdAtMillis, boolean negative, String etag) {
+        byte[] etagBytes = etag.getBytes(StandardCharsets.US_ASCII);
+        if (etagBytes.length > MAX_ETAG_LENGTH) {
+            throw new IllegalArgumentException("ETag longer than " + MAX_ETAG_LENGTH + " bytes: " + etag);
+        }
+        int bodyOffset = FIXED_HEADER + etagBytes.length;
+        byte[] buffer = new byte[bodyOffset + body.length];
+        ByteBuffer.wrap(buffer)
+                .put(FORMAT)
+                .put(negative ? FLAG_NEGATIVE : 0)
+                .putLong(createdAtMillis)
+                .putShort((short) etagBytes.length)
+                .put(etagBytes)
+                .put(body);
+        return new RenderedBody(buffer, bodyOffset, createdAtMillis, negative, etag);
+    }
+
+    /**
+     * Parses the header of a stored envelope.
+     *
+     * @return null if the bytes are not a rendered body (e.g. a JSON CachedItem under the same key)
+     */
+    static RenderedBody decode(byte[] raw) {
+        if (raw.length < FIXED_HEADER || raw[0] != FORMAT) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.wrap(raw);
+        header.position(1);
+        boolean negative = (header.get() & FLAG_NEGATIVE) != 0;
+        long createdAtMillis = header.getLong();
+        int etagLength = header.getShort() & 0xFFFF;
+        int bodyOffset = FIXED_HEADER + etagLength;
+        if (bodyOffset > raw.length) {
+            return null;
+        }
+        String etag = new String(raw, FIXED_HEADER, etagLength, StandardCharsets.US_ASCII);
+        return new RenderedBody(raw, bodyOffset, createdAtMillis, negative, etag);
+    }
+
+    /**
+     * Reads the ETag from the first {@link #HEADER_PROBE_LENGTH} bytes of an envelope,
+     * without needing the body.
+     *
+     * @return null for a negative entry or bytes that are not a rendered body
+     */
+    static String etagOf(byte[] prefix) {
+        if (prefix.length < FIXED_HEADER || prefix[0] != FORMAT || (prefix[1] & FLAG_NEGATIVE) != 0) {
+            return null;
+        }
+        int etagLength = ((prefix[FIXED_HEADER - 2] & 0xFF) << 8) | (prefix[FIXED_HEADER - 1] & 0xFF);
+        if (FIXED_HEADER + etagLength > prefix.length) {
+            return null;
+        }
+        return new String(prefix, FIXED_HEADER, etagLength, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The full envelope to store; no copy is made.
+     */
+    byte[] encoded() {
+        return buffer;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public int length() {
+        return buffer.length - bodyOffset;
+    }
+
+    public long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    public boolean isNegative() {
+        return negative;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, bodyOffset, length());
+    }
+
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buffer, bodyOffset, length()).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,70 @@
+package co.in.thunderingherd.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps each key's last successful single-flight result for a short window so callers
+ * arriving just after a leader finished share it instead of starting a new load.
+ *
+ * Not a cache: there is no refresh or per-key TTL, and owners must {@link #remove} keys
+ * whose value changed. Entries expire lazily when read, and a fixed ring of slots bounds
+ * how many are kept - each new entry takes the next slot and drops whatever entry held it,
+ * expired or not.
+ */
+final class ResultLinger {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Entry> ring;
+    private final AtomicLong cursor = new AtomicLong();
+    private final long windowNanos;
+
+    ResultLinger(long windowMillis, int maxKeys) {
+        this.windowNanos = windowMillis * 1_000_000;
+        this.ring = new AtomicReferenceArray<>(maxKeys);
+    }
+
+    /**
+     * @return the lingering entry, or null when there is none or its window has passed
+     */
+    Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos > 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(String key, Object result) {
+        Entry entry = new Entry(key, result, System.nanoTime() + windowNanos);
+        entries.put(key, entry);
+        int slot = (int) (cursor.getAndIncrement() % ring.length());
+        Entry displaced = ring.getAndSet(slot, entry);
+        if (displaced != null) {
+            entries.remove(displaced.key, displaced);
+        }
+    }
+
+    void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Ring slots keep their entries until overwritten; they are no longer reachable by key.
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    record Entry(String key, Object result, long expiresAtNanos) {
+    }
+}
@@ -1,19 +1,43 @@
 package co.in.thunderingherd.core;
 
+import co.in.thunderingherd.config.ThunderingHerdProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
  * Single-Flight Pattern Implementation
  * Ensures only ONE concurrent request executes for a given key,
  * while all other requests wait for the result.
+ *
+ * The caller whose call is installed for a key leads it; everyone finding that call
+ * follows. A thread that calls back into a key it is leading fails fast with an
+ * IllegalStateException instead of waiting on itself.
+ *
+ * Admission is bounded: a call takes at most maxWaitersPerKey followers and at most
+ * maxInFlightKeys keys run at once. Callers over either limit get a
+ * {@link SingleFlightRejectedException} immediately rather than tying up a thread.
+ *
+ * With a linger window, a successful result stays shared for that long after the leader
+ * finishes, so back-to-back waves of callers cost one load instead of one per wave. Callers
+ * that change a key's value must {@link #forget} it, or callers keep getting the old result
+ * until the window passes.
  */
 
 @Slf4j
@@ -21,66 +45,366 @@ import java.util.function.Supplier;
 public class SingleFlight {
 
     private final ConcurrentHashMap<String, Call> calls = new ConcurrentHashMap<>();
-    private final AtomicInteger dedupCount = new AtomicInteger(0);
-    private final AtomicInteger executionCount = new AtomicInteger(0);
+    // Counts installed calls for maxInFlightKeys, which calls.size() cannot enforce atomically
+    private final AtomicInteger inFlightKeys = new AtomicInteger();
+    // Striped counters: every caller bumps one of these, so a single AtomicLong would be a shared hot cache line
+    private final LongAdder dedupCount = new LongAdder();
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+    private final LongAdder lingerHitCount = new LongAdder();
+    private final int maxWaitersPerKey;
+    private final int maxInFlightKeys;
+    // null when lingering is off
+    private final ResultLinger linger;
+    private volatile SingleFlightListener listener = SingleFlightListener.NOOP;
+
+    /**
+     * Unbounded admission, no linger window.
+     */
+    public SingleFlight() {
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public SingleFlight(int maxWaitersPerKey, int maxInFlightKeys) {
+        this(maxWaitersPerKey, maxInFlightKeys, 0, 0);
+    }
+
+    /**
+     * @param lingerMillis  how long a successful result keeps being shared after the leader
+     *                      finishes; 0 disables lingering
+     * @param lingerMaxKeys most results lingering at once
+     */
+    public SingleFlight(int maxWaitersPerKey, int maxInFlightKeys, long lingerMillis, int lingerMaxKeys) {
+        this.maxWaitersPerKey = maxWaitersPerKey;
+        this.maxInFlightKeys = maxInFlightKeys;
+        this.linger = lingerMillis > 0 && lingerMaxKeys > 0 ? new ResultLinger(lingerMillis, lingerMaxKeys) : null;
+    }
+
+    @Autowired
+    public SingleFlight(ThunderingHerdProperties properties) {
+        this(properties.getSingleflight().getMaxWaitersPerKey(), properties.getSingleflight().getMaxInFlightKeys(),
+                properties.getSingleflight().getLingerMs(), properties.getSingleflight().getLingerMaxKeys());
+    }
 
     public <T> T execute(String key , Supplier<T> fn , long timeout) throws Exception {
-        while(true){
-            Call existingCall = calls.get(key);
-            if(existingCall != null){
-                dedupCount.incrementAndGet();
-                log.debug("Request deduplicated for key: {}",key);
-                try{
-                    return (T) existingCall.await(timeout);
-                }catch (Exception e){
-                    log.error("Error waiting for deduped request: {}",e.getMessage());
-                    throw new RuntimeException("Failed to get result from single-flight",e);
-                }
+        if(linger != null){
+            ResultLinger.Entry lingering = linger.get(key);
+            if(lingering != null){
+                lingerHitCount.increment();
+                @SuppressWarnings("unchecked")
+                T result = (T) lingering.result();
+                return result;
             }
-            Call newCall = new Call();
-            Call previousCall = calls.putIfAbsent(key, newCall);
-            if(previousCall != null){
-                continue;
+        }
+        Call call = calls.get(key);
+        if(call == null){
+            boolean[] claimed = new boolean[1];
+            call = calls.computeIfAbsent(key, k -> claim(claimed));
+            if(call == null){
+                throw reject(key, SingleFlightRejectedException.Reason.IN_FLIGHT_KEYS);
             }
-            executionCount.incrementAndGet();
-            log.debug("Executing request for key: {}",key);
-            try{
-                T result = fn.get();
-                newCall.complete(result);
-                return result;
-            }catch (Exception e){
-                newCall.completeExceptionally(e);
-                throw e;
-            }finally {
-                calls.remove(key);
+            if(claimed[0]){
+                return lead(key, call, fn);
             }
         }
+        return follow(key, call, timeout);
+    }
+
+    private <T> T lead(String key, Call call, Supplier<T> fn) throws Exception {
+        executionCount.increment();
+        log.debug("Executing request for key: {}",key);
+        SingleFlightEvent event = SingleFlightEvent.start();
+        long started = System.nanoTime();
+        SingleFlightListener.Outcome outcome = SingleFlightListener.Outcome.ERROR;
+        try{
+            T result = fn.get();
+            // Before the call is removed, so there is no gap where a new arrival finds neither
+            if(linger != null){
+                linger.put(key, result);
+            }
+            call.complete(result);
+            outcome = SingleFlightListener.Outcome.SUCCESS;
+            return result;
+        }catch (Exception e){
+            call.completeExceptionally(e);
+            throw e;
+        }finally {
+            // Callers that found the completed call before this read its result without waiting
+            retire(key, call);
+            int followers = call.followers();
+            listener.onLeaderComplete(key, System.nanoTime() - started, followers, outcome);
+            if(event != null){
+                event.commit(key, "leader", outcome, followers);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T follow(String key, Call call, long timeout) {
+        if(call.ledBy(Thread.currentThread())){
+            throw reentrant(key);
+        }
+        if(!call.tryJoin(maxWaitersPerKey)){
+            throw reject(key, SingleFlightRejectedException.Reason.WAITERS);
+        }
+        dedupCount.increment();
+        log.debug("Request deduplicated for key: {}",key);
+        SingleFlightEvent event = SingleFlightEvent.start();
+        long waitStart = System.nanoTime();
+        try{
+            T result = (T) call.await(timeout);
+            listener.onFollowerComplete(key, System.nanoTime() - waitStart, SingleFlightListener.Outcome.SUCCESS);
+            if(event != null){
+                event.commit(key, "follower", SingleFlightListener.Outcome.SUCCESS, 0);
+            }
+            return result;
+        }catch (Exception e){
+            SingleFlightListener.Outcome outcome =
+                    e instanceof TimeoutException ? SingleFlightListener.Outcome.TIMEOUT : SingleFlightListener.Outcome.ERROR;
+            listener.onFollowerComplete(key, System.nanoTime() - waitStart, outcome);
+            if(event != null){
+                event.commit(key, "follower", outcome, 0);
+            }
+            log.error("Error waiting for deduped request: {}",e.getMessage());
+            throw new RuntimeException("Failed to get result from single-flight",e);
+        }
     }
 
     public<T> T execute(String key, Supplier<T> fn) throws Exception {
         return execute(key, fn, 10000);
     }
+
+    /**
+     * Bulk variant of execute: claims every key nobody else is loading, runs fn once for
+     * all of them, and joins the in-flight calls for the rest. Results reach onResult on the
+     * calling thread as they become available - this caller's own loads first, then the keys
+     * it waited on. Duplicate keys are loaded and reported once. A key missing from fn's map
+     * completes with null. If any key is over an admission limit, or is already being loaded
+     * by this thread, the whole call fails and the keys it had claimed are released.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void executeAll(Collection<String> keys, Function<List<String>, Map<String, T>> fn,
+                               long timeout, BiConsumer<String, T> onResult) throws Exception {
+        Map<String, Call> led = new LinkedHashMap<>();
+        Map<String, Call> joined = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (led.containsKey(key) || joined.containsKey(key)) {
+                continue;
+            }
+            Call call = calls.get(key);
+            if (call == null) {
+                boolean[] claimed = new boolean[1];
+                call = calls.computeIfAbsent(key, k -> claim(claimed));
+                if (call == null) {
+                    throw release(led, reject(key, SingleFlightRejectedException.Reason.IN_FLIGHT_KEYS));
+                }
+                if (claimed[0]) {
+                    executionCount.increment();
+                    led.put(key, call);
+                    continue;
+                }
+            }
+            if (call.ledBy(Thread.currentThread())) {
+                throw release(led, reentrant(key));
+            }
+            if (!call.tryJoin(maxWaitersPerKey)) {
+                throw release(led, reject(key, SingleFlightRejectedException.Reason.WAITERS));
+            }
+            dedupCount.increment();
+            joined.put(key, call);
+        }
+
+        if (!led.isEmpty()) {
+            log.debug("Executing bulk request for {} keys", led.size());
+            long started = System.nanoTime();
+            SingleFlightListener.Outcome outcome = SingleFlightListener.Outcome.ERROR;
+            Map<String, T> results;
+            try {
+                results = fn.apply(new ArrayList<>(led.keySet()));
+                led.forEach((key, call) -> call.complete(results.get(key)));
+                outcome = SingleFlightListener.Outcome.SUCCESS;
+            } catch (RuntimeException e) {
+                led.values().forEach(call -> call.completeExceptionally(e));
+                throw e;
+            } finally {
+                long duration = System.nanoTime() - started;
+                for (Map.Entry<String, Call> entry : led.entrySet()) {
+                    retire(entry.getKey(), entry.getValue());
+                    listener.onLeaderComplete(entry.getKey(), duration, entry.getValue().followers(), outcome);
+                }
+            }
+            led.keySet().forEach(key -> onResult.accept(key, results.get(key)));
+        }
+
+        for (Map.Entry<String, Call> entry : joined.entrySet()) {
+            String key = entry.getKey();
+            long waitStart = System.nanoTime();
+            T result;
+            try {
+                result = (T) entry.getValue().await(timeout);
+                listener.onFollowerComplete(key, System.nanoTime() - waitStart, SingleFlightListener.Outcome.SUCCESS);
+            } catch (Exception e) {
+                listener.onFollowerComplete(key, System.nanoTime() - waitStart,
+                        e instanceof TimeoutException ? SingleFlightListener.Outcome.TIMEOUT : SingleFlightListener.Outcome.ERROR);
+                log.error("Error waiting for deduped request: {}", e.getMessage());
+                throw new RuntimeException("Failed to get result from single-flight", e);
+            }
+            onResult.accept(key, result);
+        }
+    }
+
+    /**
+     * computeIfAbsent mapping function, so it runs only for the caller whose call gets
+     * installed, which then leads it. Takes one of the maxInFlightKeys slots, or returns
+     * null to install nothing when they are all taken. The CAS only contends with installs
+     * of other keys, and a slot is never taken speculatively, so the count is exact.
+     */
+    private Call claim(boolean[] claimed) {
+        int current;
+        do {
+            current = inFlightKeys.get();
+            if (current >= maxInFlightKeys) {
+                return null;
+            }
+        } while (!inFlightKeys.compareAndSet(current, current + 1));
+        claimed[0] = true;
+        return new Call(Thread.currentThread());
+    }
+
+    private void retire(String key, Call call) {
+        if (calls.remove(key, call)) {
+            inFlightKeys.decrementAndGet();
+        }
+    }
+
+    private static IllegalStateException reentrant(String key) {
+        // Waiting would deadlock on our own call, and leading again would load the key twice
+        return new IllegalStateException("Re-entrant single-flight call for key: " + key);
+    }
+
+    private SingleFlightRejectedException reject(String key, SingleFlightRejectedException.Reason reason) {
+        rejectionCount.increment();
+        listener.onRejected(key, reason);
+        log.debug("Single-flight rejected key: {} ({})", key, reason);
+        return new SingleFlightRejectedException(key, reason);
+    }
+
+    /**
+     * Un-claims keys this bulk call was going to lead, failing anyone who already joined them.
+     */
+    private <E extends RuntimeException> E release(Map<String, Call> led, E failure) {
+        led.forEach((key, call) -> {
+            retire(key, call);
+            call.completeExceptionally(failure);
+        });
+        return failure;
+    }
+
+    /**
+     * Drops the key's lingering result, so the next caller leads a new call. A call already
+     * in flight is left to finish.
+     */
+    public void forget(String key){
+        if(linger != null){
+            linger.remove(key);
+        }
+    }
+
+    /**
+     * Drops every lingering result.
+     */
+    public void forgetAll(){
+        if(linger != null){
+            linger.clear();
+        }
+    }
+
+    /**
+     * Registers an observer for leader/follower timings; listeners added later run after earlier ones.
+     */
+    public synchronized void addListener(SingleFlightListener added){
+        listener = SingleFlightListener.composite(listener, added);
+    }
+
+    public int inFlightCount(){
+        return calls.size();
+    }
+
     public Metrics getMetrics(){
-        return new Metrics(dedupCount.get(),
-                executionCount.get(),
-                calculateDedupRatio());
+        long deduplications = dedupCount.sum();
+        long executions = executionCount.sum();
+        return new Metrics(deduplications,
+                executions,
+                calculateDedupRatio(deduplications, executions));
+    }
+    public long rejectionCount(){
+        return rejectionCount.sum();
     }
+
+    /**
+     * Callers served a lingering result without joining or leading a call.
+     */
+    public long lingerHitCount(){
+        return lingerHitCount.sum();
+    }
+
+    public int lingeringCount(){
+        return linger == null ? 0 : linger.size();
+    }
+
     public void resetMetrics(){
-        dedupCount.set(0);
-        executionCount.set(0);
+        dedupCount.reset();
+        executionCount.reset();
+        rejectionCount.reset();
+        lingerHitCount.reset();
     }
 
-    private double calculateDedupRatio(){
-        int total = executionCount.get() + dedupCount.get();
+    private static double calculateDedupRatio(long deduplications, long executions){
+        long total = executions + deduplications;
         if(total == 0) return 0.0;
-        return (double)dedupCount.get()/total * 100;
+        return (double)deduplications/total * 100;
     }
 
 
-    private static class Call {
+    static class Call {
+        private static final AtomicIntegerFieldUpdater<Call> FOLLOWERS =
+                AtomicIntegerFieldUpdater.newUpdater(Call.class, "followers");
+
         private final CountDownLatch latch = new CountDownLatch(1);
+        // Only to detect a leader calling back into its own key; leadership comes from installing the call
+        private final Thread leader;
         private volatile Object result;
         private volatile Exception exception;
+        private volatile int followers;
+
+        Call(Thread leader) {
+            this.leader = leader;
+        }
+
+        /**
+         * True for the thread that created this call.
+         */
+        boolean ledBy(Thread thread) {
+            return leader == thread;
+        }
+
+        /**
+         * Joins unless the call already has maxFollowers; followers that timed out still count.
+         */
+        public boolean tryJoin(int maxFollowers) {
+            int current;
+            do {
+                current = followers;
+                if (current >= maxFollowers) {
+                    return false;
+                }
+            } while (!FOLLOWERS.compareAndSet(this, current, current + 1));
+            return true;
+        }
+
+        public int followers() {
+            return followers;
+        }
 
         public void complete(Object result) {
             this.result = result;
@@ -102,5 +426,5 @@ public class SingleFlight {
         }
     }
 
-    public record Metrics(int deduplications, int executions,double dedupRatioPercent){}
+    public record Metrics(long deduplications, long executions,double dedupRatioPercent){}
 }
@@ -0,0 +1,65 @@
+package co.in.thunderingherd.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A leader's execution or a follower's wait inside {@link SingleFlight}. Leader events
+ * carry the number of followers they absorbed.
+ */
+@Name("co.in.thunderingherd.SingleFlight")
+@Label("Single-Flight Call")
+@Category({"Thundering Herd", "Single-Flight"})
+@Description("Single-flight leader execution or follower wait")
+@Enabled(false)
+@StackTrace(false)
+class SingleFlightEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(SingleFlightEvent.class);
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Key")
+    String key;
+
+    @Label("Role")
+    String role;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Followers")
+    int followers;
+
+    /**
+     * @return a begun event, or null while no recording enables it, so untraced calls
+     * allocate nothing
+     */
+    static SingleFlightEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        SingleFlightEvent event = new SingleFlightEvent();
+        event.begin();
+        return event;
+    }
+
+    void commit(String key, String role, SingleFlightListener.Outcome outcome, int followers) {
+        end();
+        if (shouldCommit()) {
+            this.namespace = CacheMetrics.namespaceOf(key);
+            this.key = key;
+            this.role = role;
+            this.outcome = outcome.tagValue();
+            this.followers = followers;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package co.in.thunderingherd.core;
+
+import java.util.Locale;
+
+/**
+ * Callback for observing SingleFlight executions, invoked on the calling thread.
+ * Implementations must be cheap and must not throw.
+ */
+public interface SingleFlightListener {
+
+    SingleFlightListener NOOP = new SingleFlightListener() {};
+
+    /**
+     * The leader finished running the loader.
+     *
+     * @param followers number of callers that joined this execution while it was in flight
+     */
+    default void onLeaderComplete(String key, long durationNanos, int followers, Outcome outcome) {}
+
+    /**
+     * A follower stopped waiting on a leader's result.
+     */
+    default void onFollowerComplete(String key, long waitNanos, Outcome outcome) {}
+
+    /**
+     * A caller was turned away by an admission limit without joining or leading a call.
+     */
+    default void onRejected(String key, SingleFlightRejectedException.Reason reason) {}
+
+    static SingleFlightListener composite(SingleFlightListener first, SingleFlightListener second) {
+        if (first == NOOP) {
+            return second;
+        }
+        return new SingleFlightListener() {
+            @Override
+            public void onLeaderComplete(String key, long durationNanos, int followers, Outcome outcome) {
+                first.onLeaderComplete(key, durationNanos, followers, outcome);
+                second.onLeaderComplete(key, durationNanos, followers, outcome);
+            }
+
+            @Override
+            public void onFollowerComplete(String key, long waitNanos, Outcome outcome) {
+                first.onFollowerComplete(key, waitNanos, outcome);
+                second.onFollowerComplete(key, waitNanos, outcome);
+            }
+
+            @Override
+            public void onRejected(String key, SingleFlightRejectedException.Reason reason) {
+                first.onRejected(key, reason);
+                second.onRejected(key, reason);
+            }
+        };
+    }
+
+    enum Outcome {
+        SUCCESS, ERROR, TIMEOUT;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
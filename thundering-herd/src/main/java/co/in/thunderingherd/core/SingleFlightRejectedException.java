@@ -0,0 +1,43 @@
+package co.in.thunderingherd.core;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Locale;
+
+/**
+ * Thrown straight away, instead of waiting, when a {@link SingleFlight} call is over its
+ * admission limits. It carries no stack trace, so rejecting is cheap even when thousands of
+ * callers are turned away at once.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SingleFlightRejectedException extends RuntimeException {
+
+    private final String key;
+    private final Reason reason;
+
+    public SingleFlightRejectedException(String key, Reason reason) {
+        super("Single-flight rejected " + key + ": " + reason.tagValue(), null, false, false);
+        this.key = key;
+        this.reason = reason;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public enum Reason {
+        /** The key's in-flight call already has the maximum number of followers. */
+        WAITERS,
+        /** The maximum number of distinct keys are already in flight. */
+        IN_FLIGHT_KEYS;
+
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
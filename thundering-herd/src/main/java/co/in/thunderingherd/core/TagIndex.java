@@ -0,0 +1,175 @@
+package co.in.thunderingherd.core;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Tag index for invalidating groups of entries: each tag is a Redis set of the keys
+ * written with it, expiring no earlier than its longest-lived member.
+ *
+ * Tagging and invalidation are Lua scripts, so each is atomic on the server. Invalidation
+ * pops and unlinks up to {@code tags.batch-size} members per script call and sends
+ * {@code tags.pipeline-depth} calls per round trip, which keeps every script short
+ * however many keys carry the tag. Members are passed to the scripts as arguments rather
+ * than keys, so this assumes a single Redis node (not Cluster).
+ *
+ * Scripts are loaded into Redis once and called by SHA1, so a call sends the hash rather
+ * than the script body. Redis answers NOSCRIPT once its script cache is gone (restart,
+ * failover, SCRIPT FLUSH); the scripts are then loaded again and the pipeline retried.
+ */
+@Component
+public class TagIndex {
+
+    static final String TAG_KEY_PREFIX = "thundering-herd:tag:";
+
+    /** KEYS: tag sets; ARGV: member key, member TTL in seconds. */
+    public static final String TAG_SCRIPT = """
+            for _, set in ipairs(KEYS) do
+              redis.call('SADD', set, ARGV[1])
+              if redis.call('TTL', set) < tonumber(ARGV[2]) then
+                redis.call('EXPIRE', set, ARGV[2])
+              end
+            end
+            return #KEYS""";
+
+    /** KEYS: tag set; ARGV: batch size. Returns the members removed. */
+    public static final String INVALIDATE_SCRIPT = """
+            local members = redis.call('SPOP', KEYS[1], ARGV[1])
+            if #members > 0 then
+              redis.call('UNLINK', unpack(members))
+            end
+            return members""";
+
+    private static final byte[] TAG_SCRIPT_BYTES = TAG_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INVALIDATE_SCRIPT_BYTES = INVALIDATE_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TAG_SCRIPT_SHA = sha1(TAG_SCRIPT);
+    private static final byte[] INVALIDATE_SCRIPT_SHA = sha1(INVALIDATE_SCRIPT);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final int batchSize;
+    private final int pipelineDepth;
+    private volatile boolean scriptsLoaded;
+
+    public TagIndex(RedisTemplate<String, Object> redisTemplate, ThunderingHerdProperties properties) {
+        this.redisTemplate = redisTemplate;
+        // unpack() is bounded by the Lua stack, so batches stay well below it
+        this.batchSize = Math.min(Math.max(1, properties.getTags().getBatchSize()), 5000);
+        this.pipelineDepth = Math.max(1, properties.getTags().getPipelineDepth());
+    }
+
+    /**
+     * Adds the key to each tag's set on the given connection, which may be pipelined. The
+     * script is called by SHA1, so the call must run inside {@link #withScripts}.
+     */
+    void tag(RedisConnection connection, byte[] rawKey, long ttlSeconds, Set<String> tags) {
+        byte[][] keysAndArgs = new byte[tags.size() + 2][];
+        int i = 0;
+        for (String tag : tags) {
+            keysAndArgs[i++] = tagKey(tag);
+        }
+        keysAndArgs[i++] = rawKey;
+        keysAndArgs[i] = Long.toString(ttlSeconds).getBytes(StandardCharsets.US_ASCII);
+        connection.scriptingCommands().evalSha(TAG_SCRIPT_SHA, ReturnType.INTEGER, tags.size(), keysAndArgs);
+    }
+
+    /**
+     * Deletes every key carrying the tag and empties the tag.
+     *
+     * @param onRemoved called with each deleted key, e.g. to drop local copies
+     * @return the number of keys removed from the tag
+     */
+    public long invalidate(String tag, Consumer<String> onRemoved) {
+        byte[] tagKey = tagKey(tag);
+        byte[] count = Integer.toString(batchSize).getBytes(StandardCharsets.US_ASCII);
+        long removed = 0;
+        boolean more = true;
+        while (more) {
+            // Every call in the pipeline is the same script, so a NOSCRIPT reply means none ran
+            List<Object> batches = withScripts(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < pipelineDepth; i++) {
+                    connection.scriptingCommands().evalSha(INVALIDATE_SCRIPT_SHA, ReturnType.MULTI, 1, tagKey, count);
+                }
+                return null;
+            }, RedisSerializer.byteArray()));
+
+            more = false;
+            for (Object batch : batches) {
+                List<?> members = batch instanceof List<?> list ? list : List.of();
+                for (Object member : members) {
+                    onRemoved.accept(new String((byte[]) member, StandardCharsets.UTF_8));
+                }
+                removed += members.size();
+                // A full last batch means the set may still hold members
+                more = members.size() == batchSize;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Runs Redis calls that use the scripts by SHA1, loading the scripts first if this node
+     * has not yet, and reloading them and running the calls again on NOSCRIPT. The calls
+     * are therefore repeated as a whole, so they must be safe to repeat.
+     */
+    <T> T withScripts(Supplier<T> calls) {
+        if (!scriptsLoaded) {
+            loadScripts();
+        }
+        try {
+            return calls.get();
+        } catch (DataAccessException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            loadScripts();
+            return calls.get();
+        }
+    }
+
+    private void loadScripts() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptLoad(TAG_SCRIPT_BYTES);
+            connection.scriptingCommands().scriptLoad(INVALIDATE_SCRIPT_BYTES);
+            return null;
+        });
+        scriptsLoaded = true;
+    }
+
+    private static boolean isNoScript(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+            if (t instanceof RedisPipelineException pipeline && pipeline.getPipelineResult() != null) {
+                for (Object result : pipeline.getPipelineResult()) {
+                    if (result instanceof Throwable failed && failed != t && isNoScript(failed)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] sha1(String script) {
+        return RedisScript.of(script).getSha1().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] tagKey(String tag) {
+        return (TAG_KEY_PREFIX + tag).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -3,15 +3,25 @@ package co.in.thunderingherd.core;
 import co.in.thunderingherd.config.ThunderingHerdProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Optional;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 @Slf4j
@@ -22,139 +32,845 @@ public class ThunderingHerdCacheManager {
     private final RedisTemplate<String, Object> redisTemplate;
     private final SingleFlight singleFlight;
     private final ThunderingHerdProperties properties;
-    private final Random random = new Random();
+    private final CacheMetrics cacheMetrics;
+    private final CacheTimers cacheTimers;
+    private final LocalCacheTier localCacheTier;
+    private final LoaderRetry loaderRetry;
+    private final CacheWriteBehind writeBehind;
+    private final NamespaceGenerations generations;
+    private final TagIndex tagIndex;
+
+    private static final int INVALIDATE_BATCH = 500;
 
     public <T> T get(String key, Supplier<T> loader) throws Exception {
         return get(key, loader, properties.getCache().getDefaultTtl());
     }
 
     public <T> T get(String key, Supplier<T> loader, long ttlSeconds) throws Exception {
-        Optional<CachedItem<T>> cachedItem = getFromCache(key);
+        return get(key, loader, ttlSeconds, LookupPolicy.DEFAULT);
+    }
+
+    public <T> T getWithStale(String key, Supplier<T> loader, long ttlSeconds) throws Exception {
+        return get(key, loader, ttlSeconds, LookupPolicy.SERVE_STALE);
+    }
+
+    public <T> T get(String key, Supplier<T> loader, long ttlSeconds, LookupPolicy policy) throws Exception {
+        return get(CacheKey.of(key), Supplier::get, loader, ttlSeconds, policy);
+    }
+
+    /**
+     * Allocation-free form of {@link #get}: the key is already encoded, and the loader gets
+     * its input as an argument, so callers can pass a loader held in a field instead of a
+     * capturing lambda. A hit allocates nothing beyond the Redis read and its decoded value.
+     */
+    public <A, T> T get(CacheKey key, Function<? super A, ? extends T> loader, A argument, long ttlSeconds,
+                        LookupPolicy policy) throws Exception {
+        long started = System.nanoTime();
+        key = generations.keyFor(key);
+        try {
+            return lookup(key, loader, argument, ttlSeconds, policy, started);
+        } catch (Exception e) {
+            // An overloaded single-flight rejects without loading; whatever is cached by now beats failing
+            boolean rejected = e instanceof SingleFlightRejectedException;
+            if (policy.serveStale() || rejected) {
+                if (rejected) {
+                    log.debug("Single-flight rejected key: {}. Attempting stale cache.", key);
+                } else {
+                    log.warn("Error loading value for key: {}. Attempting stale cache.", key, e);
+                }
+
+                CachedItem<T> stale = getFromCache(key.name());
+                if (stale != null && !stale.isNegative()) {
+                    if (!rejected) {
+                        log.info("Serving stale cache for key: {}", key);
+                    }
+                    cacheMetrics.record(key.name(), CacheMetrics.Tier.STALE_SERVED);
+                    cacheTimers.recordLookup(CacheTimers.Outcome.STALE, started);
+                    return stale.getValue();
+                }
+            }
+
+            cacheTimers.recordLookup(rejected ? CacheTimers.Outcome.REJECTED : CacheTimers.Outcome.ERROR, started);
+            throw e;
+        }
+    }
+
+    /**
+     * Entity variant of {@link #getAllRendered}: one MGET for all keys, then a single loader
+     * call (through single-flight) for the misses, written back in one pipeline. Keys the
+     * loader does not return are negatively cached when the policy allows it.
+     *
+     * @return the values found, keyed like the input; absent and negative keys are left out
+     */
+    public <T> Map<String, T> getAll(List<String> keys, Function<List<String>, Map<String, T>> loader,
+                                     long ttlSeconds, LookupPolicy policy) throws Exception {
+        long started = System.nanoTime();
+        try {
+            List<byte[]> raw = readRawAll(keys);
+            Map<String, T> found = new HashMap<>();
+            List<String> misses = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                CachedItem<T> cached = raw == null ? null : decode(key, raw.get(i));
+
+                if (cached == null) {
+                    cacheMetrics.record(key, CacheMetrics.Tier.MISS);
+                    misses.add(key);
+                } else if (cached.isNegative()) {
+                    cacheMetrics.record(key, CacheMetrics.Tier.NEGATIVE_HIT);
+                    cacheTimers.recordLookup(CacheTimers.Outcome.NEGATIVE_HIT, started);
+                } else {
+                    cacheMetrics.record(key, CacheMetrics.Tier.REDIS_HIT);
+                    if (shouldRefreshEarly(cached, ttlSeconds)) {
+                        cacheMetrics.record(key, CacheMetrics.Tier.EARLY_REFRESH);
+                        refreshAsync(key, () -> loadAll(List.of(key), loader, ttlSeconds, policy));
+                    }
+                    cacheTimers.recordLookup(CacheTimers.Outcome.REDIS_HIT, started);
+                    found.put(key, cached.getValue());
+                }
+            }
+
+            if (misses.isEmpty()) {
+                return found;
+            }
+            Set<String> led = new HashSet<>();
+            singleFlight.<T>executeAll(misses, leaderKeys -> {
+                led.addAll(leaderKeys);
+                return loadAll(leaderKeys, loader, ttlSeconds, policy);
+            }, properties.getSingleflight().getTimeout(), (key, value) -> {
+                cacheTimers.recordLookup(led.contains(key) ? CacheTimers.Outcome.LOADED : CacheTimers.Outcome.COALESCED, started);
+                if (value != null) {
+                    found.put(key, value);
+                }
+            });
+            return found;
+        } catch (Exception e) {
+            cacheTimers.recordLookup(CacheTimers.Outcome.ERROR, started);
+            throw e;
+        }
+    }
+
+    /**
+     * Raw-bytes variant of {@link #get}: the cache holds the rendered response body rather
+     * than the entity, so a hit is one Redis read and a header parse. The renderer runs
+     * once per load on the single-flight leader; a null value is negatively cached.
+     *
+     * @return the rendered body, or null when the loader found nothing
+     */
+    public <T> RenderedBody getRendered(String key, Supplier<T> loader, Function<? super T, byte[]> renderer,
+                                        long ttlSeconds) throws Exception {
+        return lookupRendered(generations.keyFor(key), loader, renderer, ttlSeconds);
+    }
+
+    private <T> RenderedBody lookupRendered(String key, Supplier<T> loader, Function<? super T, byte[]> renderer,
+                                            long ttlSeconds) throws Exception {
+        long started = System.nanoTime();
+        CacheLookupEvent event = CacheLookupEvent.start();
+        try {
+            byte[] raw = localCacheTier.get(key);
+            boolean local = raw != null;
+            if (!local) {
+                raw = readRaw(key);
+            }
+            RenderedBody cached = null;
+            if (raw != null) {
+                long decodeStarted = System.nanoTime();
+                cached = RenderedBody.decode(raw);
+                cacheTimers.recordCodec(CacheTimers.CodecOp.DECODE, decodeStarted);
+            }
+
+            if (cached != null) {
+                if (cached.isNegative()) {
+                    cacheMetrics.record(key, CacheMetrics.Tier.NEGATIVE_HIT);
+                    cacheTimers.recordLookup(CacheTimers.Outcome.NEGATIVE_HIT, started);
+                    if (event != null) {
+                        event.commit(key, CacheMetrics.Tier.NEGATIVE_HIT);
+                    }
+                    return null;
+                }
 
-        if (cachedItem.isPresent()) {
-            CachedItem<T> item = cachedItem.get();
+                CacheMetrics.Tier hitTier = local ? CacheMetrics.Tier.L1_HIT : CacheMetrics.Tier.REDIS_HIT;
+                cacheMetrics.record(key, hitTier);
+                if (shouldRefreshEarly(cached.createdAtMillis(), ttlSeconds)) {
+                    cacheMetrics.record(key, CacheMetrics.Tier.EARLY_REFRESH);
+                    refreshAsync(key, () -> loadRendered(key, loader, renderer, ttlSeconds));
+                }
+
+                cacheTimers.recordLookup(local ? CacheTimers.Outcome.L1_HIT : CacheTimers.Outcome.REDIS_HIT, started);
+                if (event != null) {
+                    event.commit(key, hitTier);
+                }
+                return cached;
+            }
+
+            cacheMetrics.record(key, CacheMetrics.Tier.MISS);
+            boolean[] led = new boolean[1];
+            RenderedBody body = singleFlight.execute(key, () -> {
+                led[0] = true;
+                return loadRendered(key, loader, renderer, ttlSeconds);
+            });
+            cacheTimers.recordLookup(led[0] ? CacheTimers.Outcome.LOADED : CacheTimers.Outcome.COALESCED, started);
+            if (event != null) {
+                event.commit(key, CacheMetrics.Tier.MISS);
+            }
+            return body;
+        } catch (SingleFlightRejectedException e) {
+            byte[] raw = readRaw(key);
+            RenderedBody stale = raw == null ? null : RenderedBody.decode(raw);
+            if (stale != null && !stale.isNegative()) {
+                cacheMetrics.record(key, CacheMetrics.Tier.STALE_SERVED);
+                cacheTimers.recordLookup(CacheTimers.Outcome.STALE, started);
+                return stale;
+            }
+            cacheTimers.recordLookup(CacheTimers.Outcome.REJECTED, started);
+            throw e;
+        } catch (Exception e) {
+            cacheTimers.recordLookup(CacheTimers.Outcome.ERROR, started);
+            throw e;
+        }
+    }
+
+    /**
+     * Bulk variant of {@link #getRendered}: one MGET for all keys, then a single bulk load
+     * (single-flighted per key against concurrent callers) for the misses. Each key is
+     * handed to onResult on the calling thread as soon as it is resolved - hits straight
+     * after the MGET, loads as they complete - with a null body for not-found entries.
+     *
+     * @param loader receives the keys to load and returns the values found; absent keys are negatively cached
+     */
+    public <T> void getAllRendered(List<String> keys, Function<List<String>, Map<String, T>> loader,
+                                   Function<? super T, byte[]> renderer, long ttlSeconds,
+                                   BiConsumer<String, RenderedBody> onResult) throws Exception {
+        long started = System.nanoTime();
+        try {
+            List<byte[]> raw = readRawAll(keys);
+            List<String> misses = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                RenderedBody cached = null;
+                byte[] bytes = raw == null ? null : raw.get(i);
+                if (bytes != null) {
+                    long decodeStarted = System.nanoTime();
+                    cached = RenderedBody.decode(bytes);
+                    cacheTimers.recordCodec(CacheTimers.CodecOp.DECODE, decodeStarted);
+                }
+
+                if (cached == null) {
+                    cacheMetrics.record(key, CacheMetrics.Tier.MISS);
+                    misses.add(key);
+                } else if (cached.isNegative()) {
+                    cacheMetrics.record(key, CacheMetrics.Tier.NEGATIVE_HIT);
+                    cacheTimers.recordLookup(CacheTimers.Outcome.NEGATIVE_HIT, started);
+                    onResult.accept(key, null);
+                } else {
+                    cacheMetrics.record(key, CacheMetrics.Tier.REDIS_HIT);
+                    if (shouldRefreshEarly(cached.createdAtMillis(), ttlSeconds)) {
+                        cacheMetrics.record(key, CacheMetrics.Tier.EARLY_REFRESH);
+                        refreshAsync(key, () -> loadAllRendered(List.of(key), loader, renderer, ttlSeconds));
+                    }
+                    cacheTimers.recordLookup(CacheTimers.Outcome.REDIS_HIT, started);
+                    onResult.accept(key, cached);
+                }
+            }
+
+            if (misses.isEmpty()) {
+                return;
+            }
+            Set<String> led = new HashSet<>();
+            singleFlight.executeAll(misses, leaderKeys -> {
+                led.addAll(leaderKeys);
+                return loadAllRendered(leaderKeys, loader, renderer, ttlSeconds);
+            }, properties.getSingleflight().getTimeout(), (key, body) -> {
+                cacheTimers.recordLookup(led.contains(key) ? CacheTimers.Outcome.LOADED : CacheTimers.Outcome.COALESCED, started);
+                onResult.accept(key, body);
+            });
+        } catch (Exception e) {
+            cacheTimers.recordLookup(CacheTimers.Outcome.ERROR, started);
+            throw e;
+        }
+    }
+
+    /**
+     * The ETag of a rendered entry, read with a GETRANGE over the envelope header so a
+     * conditional request can be answered without transferring the body. Never loads.
+     *
+     * @return null when the key is absent, negative or not a rendered body
+     */
+    public String getRenderedEtag(String key) {
+        key = generations.keyFor(key);
+        byte[] local = localCacheTier.get(key);
+        if (local == null) {
+            local = writeBehind.pending(key);
+        }
+        if (local != null) {
+            return RenderedBody.etagOf(local);
+        }
+        try {
+            byte[] rawKey = keySerializer().serialize(key);
+            long started = System.nanoTime();
+            byte[] prefix = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands()
+                    .getRange(rawKey, 0, RenderedBody.HEADER_PROBE_LENGTH - 1));
+            cacheTimers.recordRedis(CacheTimers.RedisOp.GET_HEADER, started);
+            return prefix == null ? null : RenderedBody.etagOf(prefix);
+        } catch (Exception e) {
+            log.error("Error reading ETag for key: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Records the lookup timer for every successful outcome; failures are left to the
+     * caller, which knows whether a stale value was served instead.
+     */
+    private <A, T> T lookup(CacheKey cacheKey, Function<? super A, ? extends T> loader, A argument, long ttlSeconds,
+                            LookupPolicy policy, long started) throws Exception {
+        String key = cacheKey.name();
+        CacheLookupEvent event = CacheLookupEvent.start();
+        byte[] local = localCacheTier.get(cacheKey);
+        CachedItem<T> item = local != null ? decode(key, local) : getFromCache(key, cacheKey.encoded());
+
+        if (item != null) {
+            CacheMetrics.Tier hitTier = local != null ? CacheMetrics.Tier.L1_HIT : CacheMetrics.Tier.REDIS_HIT;
 
             if (item.isNegative()) {
                 log.debug("Negative cache hit for key: {}", key);
+                cacheMetrics.record(key, CacheMetrics.Tier.NEGATIVE_HIT);
+                cacheTimers.recordLookup(CacheTimers.Outcome.NEGATIVE_HIT, started);
+                if (event != null) {
+                    event.commit(key, CacheMetrics.Tier.NEGATIVE_HIT);
+                }
                 return null;
             }
 
+            cacheMetrics.record(key, hitTier);
             if (shouldRefreshEarly(item, ttlSeconds)) {
                 log.debug("Triggering probabilistic refresh for key: {}", key);
-                refreshAsync(key, loader, ttlSeconds);
+                cacheMetrics.record(key, CacheMetrics.Tier.EARLY_REFRESH);
+                refreshAsync(key, () -> {
+                    T value = loadTraced(key, () -> loader.apply(argument));
+                    if (value != null) {
+                        setCache(key, value, addJitter(ttlSeconds), policy.tags());
+                    }
+                });
             }
 
+            cacheTimers.recordLookup(local != null ? CacheTimers.Outcome.L1_HIT : CacheTimers.Outcome.REDIS_HIT, started);
+            if (event != null) {
+                event.commit(key, hitTier);
+            }
             return item.getValue();
         }
 
-        return singleFlight.execute(key, () -> {
-            T value = loader.get();
+        cacheMetrics.record(key, CacheMetrics.Tier.MISS);
+        // The loader only runs on the leader's thread, so this tells a load from a coalesced wait
+        boolean[] led = new boolean[1];
+        try {
+            T value = singleFlight.execute(key, () -> {
+                led[0] = true;
+                return load(key, () -> loader.apply(argument), ttlSeconds, policy);
+            });
+            cacheTimers.recordLookup(led[0] ? CacheTimers.Outcome.LOADED : CacheTimers.Outcome.COALESCED, started);
+            return value;
+        } finally {
+            if (event != null) {
+                event.commit(key, CacheMetrics.Tier.MISS);
+            }
+        }
+    }
+
+    private <T> T load(String key, Supplier<? extends T> loader, long ttlSeconds, LookupPolicy policy) {
+        T value = loadTraced(key, loader);
 
-            if (value == null) {
-                setNegativeCache(key);
-                return null;
+        if (value == null) {
+            if (policy.cacheNulls()) {
+                setNegativeCache(key, policy.tags());
             }
+            return null;
+        }
 
-            long jitteredTtl = addJitter(ttlSeconds);
-            setCache(key, value, jitteredTtl);
+        long jitteredTtl = addJitter(ttlSeconds);
+        setCache(key, value, jitteredTtl, policy.tags());
 
-            return value;
-        });
+        return value;
     }
 
-    public <T> T getWithStale(String key, Supplier<T> loader, long ttlSeconds) throws Exception {
+    private <T> Map<String, T> loadAll(List<String> keys, Function<List<String>, Map<String, T>> loader,
+                                       long ttlSeconds, LookupPolicy policy) {
+        // Bulk loads spend the retry budget of their namespace rather than of each key
+        Map<String, T> values = loaderRetry.call(CacheMetrics.namespaceOf(keys.get(0)), () -> loader.apply(keys));
+        Map<String, byte[]> raw = new HashMap<>();
+        Map<String, Long> ttls = new HashMap<>();
+        long now = System.currentTimeMillis();
+        long started = System.nanoTime();
+        for (String key : keys) {
+            T value = values.get(key);
+            if (value != null) {
+                raw.put(key, valueSerializer().serialize(new CachedItem<>(value, now)));
+                ttls.put(key, addJitter(ttlSeconds));
+            } else if (policy.cacheNulls()) {
+                raw.put(key, valueSerializer().serialize(CachedItem.negative()));
+                ttls.put(key, properties.getCache().getNegativeCacheTtl());
+            }
+        }
+        cacheTimers.recordCodec(CacheTimers.CodecOp.ENCODE, started);
         try {
-            return get(key, loader, ttlSeconds);
+            writeRawAll(raw, ttls, policy.tags());
+            log.debug("Cached {} keys", raw.size());
         } catch (Exception e) {
-            log.warn("Error loading value for key: {}. Attempting stale cache.", key, e);
+            log.error("Error setting cache for {} keys", raw.size(), e);
+        }
+        return values;
+    }
 
-            Optional<CachedItem<T>> stale = getFromCache(key);
-            if (stale.isPresent() && !stale.get().isNegative()) {
-                log.info("Serving stale cache for key: {}", key);
-                return stale.get().getValue();
+    private <T> RenderedBody loadRendered(String key, Supplier<T> loader, Function<? super T, byte[]> renderer,
+                                          long ttlSeconds) {
+        T value = loadTraced(key, loader);
+        if (value == null) {
+            setRendered(key, RenderedBody.negative(), properties.getCache().getNegativeCacheTtl());
+            return null;
+        }
+
+        long started = System.nanoTime();
+        RenderedBody body = RenderedBody.of(renderer.apply(value));
+        cacheTimers.recordCodec(CacheTimers.CodecOp.ENCODE, started);
+        setRendered(key, body, addJitter(ttlSeconds));
+        return body;
+    }
+
+    private <T> Map<String, RenderedBody> loadAllRendered(List<String> keys, Function<List<String>, Map<String, T>> loader,
+                                                          Function<? super T, byte[]> renderer, long ttlSeconds) {
+        // Bulk loads spend the retry budget of their namespace rather than of each key
+        Map<String, T> values = loaderRetry.call(CacheMetrics.namespaceOf(keys.get(0)), () -> loader.apply(keys));
+        Map<String, RenderedBody> bodies = new HashMap<>();
+        Map<String, Long> ttls = new HashMap<>();
+        for (String key : keys) {
+            T value = values.get(key);
+            if (value == null) {
+                bodies.put(key, RenderedBody.negative());
+                ttls.put(key, properties.getCache().getNegativeCacheTtl());
+                continue;
             }
+            long started = System.nanoTime();
+            bodies.put(key, RenderedBody.of(renderer.apply(value)));
+            cacheTimers.recordCodec(CacheTimers.CodecOp.ENCODE, started);
+            ttls.put(key, addJitter(ttlSeconds));
+        }
+        setRenderedAll(bodies, ttls);
 
-            throw e;
+        bodies.replaceAll((key, body) -> body.isNegative() ? null : body);
+        return bodies;
+    }
+
+    private <T> T loadTraced(String key, Supplier<? extends T> loader) {
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.begin();
+        boolean failed = true;
+        T value = null;
+        try {
+            value = loaderRetry.call(key, loader);
+            failed = false;
+            return value;
+        } finally {
+            event.commit(key, value != null, failed);
         }
     }
 
-    private <T> boolean shouldRefreshEarly(CachedItem<T> item, long ttl) {
-        long age = Duration.between(item.getCreatedAt(), Instant.now()).getSeconds();
+    <T> boolean shouldRefreshEarly(CachedItem<T> item, long ttl) {
+        return shouldRefreshEarly(item.getCreatedAtMillis(), ttl);
+    }
+
+    boolean shouldRefreshEarly(long createdAtMillis, long ttl) {
+        long age = (System.currentTimeMillis() - createdAtMillis) / 1000;
         double probability = properties.getCache().getBeta() * ((double) age / ttl);
-        return random.nextDouble() < probability;
+        return ThreadLocalRandom.current().nextDouble() < probability;
     }
 
-    private long addJitter(long ttl) {
+    long addJitter(long ttl) {
         double jitterPercent = properties.getCache().getJitterPercentage() / 100.0;
         long jitterRange = (long) (ttl * jitterPercent);
-        long jitter = random.nextLong(jitterRange * 2) - jitterRange;
+        long jitter = jitterRange == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterRange * 2) - jitterRange;
         return Math.max(1, ttl + jitter);
     }
 
-    private <T> void refreshAsync(String key, Supplier<T> loader, long ttl) {
+    private void refreshAsync(String key, Runnable refresh) {
         CompletableFuture.runAsync(() -> {
+            CacheRefreshEvent event = new CacheRefreshEvent();
+            event.begin();
             try {
-                T value = loader.get();
-                if (value != null) {
-                    long jitteredTtl = addJitter(ttl);
-                    setCache(key, value, jitteredTtl);
-                    log.debug("Background refresh completed for key: {}", key);
-                }
+                refresh.run();
+                log.debug("Background refresh completed for key: {}", key);
+                event.commit(key, true);
             } catch (Exception e) {
+                event.commit(key, false);
                 log.warn("Background refresh failed for key: {}", key, e);
             }
         });
     }
 
+    /**
+     * Reads the raw bytes through a connection callback rather than opsForValue(), so the
+     * Redis round trip and the JSON decode are timed separately.
+     */
+    private <T> CachedItem<T> getFromCache(String key) {
+        return getFromCache(key, keySerializer().serialize(key));
+    }
+
+    /**
+     * @return the entry, or null when it is absent or Redis could not be read (treated as a miss)
+     */
+    private <T> CachedItem<T> getFromCache(String key, byte[] rawKey) {
+        try {
+            return decode(key, readRaw(key, rawKey));
+        } catch (Exception e) {
+            log.error("Error getting from cache: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the decoded entry, or null when raw is null or cannot be decoded
+     */
     @SuppressWarnings("unchecked")
-    private <T> Optional<CachedItem<T>> getFromCache(String key) {
+    private <T> CachedItem<T> decode(String key, byte[] raw) {
+        if (raw == null) {
+            return null;
+        }
         try {
-            Object value = redisTemplate.opsForValue().get(key);
+            long started = System.nanoTime();
+            Object value = valueSerializer().deserialize(raw);
+            cacheTimers.recordCodec(CacheTimers.CodecOp.DECODE, started);
             if (value == null) {
-                return Optional.empty();
+                return null;
             }
 
             if (value instanceof CachedItem) {
-                return Optional.of((CachedItem<T>) value);
+                return (CachedItem<T>) value;
             }
 
-            return Optional.of(new CachedItem<>((T) value, Instant.now()));
+            return new CachedItem<>((T) value, System.currentTimeMillis());
         } catch (Exception e) {
-            log.error("Error getting from cache: {}", key, e);
-            return Optional.empty();
+            log.error("Error decoding cache entry: {}", key, e);
+            return null;
         }
     }
 
-    private <T> void setCache(String key, T value, long ttl) {
+    private <T> void setCache(String key, T value, long ttl, Set<String> tags) {
         try {
-            CachedItem<T> item = new CachedItem<>(value, Instant.now());
-            redisTemplate.opsForValue().set(key, item, ttl, TimeUnit.SECONDS);
+            CachedItem<T> item = new CachedItem<>(value, System.currentTimeMillis());
+            write(key, item, ttl, tags);
             log.debug("Cached key: {} with TTL: {}s", key, ttl);
         } catch (Exception e) {
             log.error("Error setting cache: {}", key, e);
         }
     }
 
-    private void setNegativeCache(String key) {
+    private void setNegativeCache(String key, Set<String> tags) {
         try {
             CachedItem<Object> item = CachedItem.negative();
             long ttl = properties.getCache().getNegativeCacheTtl();
-            redisTemplate.opsForValue().set(key, item, ttl, TimeUnit.SECONDS);
+            write(key, item, ttl, tags);
             log.debug("Negative cached key: {} with TTL: {}s", key, ttl);
         } catch (Exception e) {
             log.error("Error setting negative cache: {}", key, e);
         }
     }
 
+    private void setRendered(String key, RenderedBody body, long ttl) {
+        try {
+            writeRaw(key, body.encoded(), ttl, Set.of());
+            log.debug("Cached rendered key: {} with TTL: {}s", key, ttl);
+        } catch (Exception e) {
+            log.error("Error setting rendered cache: {}", key, e);
+        }
+    }
+
+    private void setRenderedAll(Map<String, RenderedBody> bodies, Map<String, Long> ttls) {
+        try {
+            Map<String, byte[]> raw = new HashMap<>();
+            bodies.forEach((key, body) -> raw.put(key, body.encoded()));
+            writeRawAll(raw, ttls, Set.of());
+            log.debug("Cached {} rendered keys", bodies.size());
+        } catch (Exception e) {
+            log.error("Error setting rendered cache for {} keys", bodies.size(), e);
+        }
+    }
+
+    private void write(String key, CachedItem<?> item, long ttlSeconds, Set<String> tags) {
+        long started = System.nanoTime();
+        byte[] raw = valueSerializer().serialize(item);
+        cacheTimers.recordCodec(CacheTimers.CodecOp.ENCODE, started);
+        writeRaw(key, raw, ttlSeconds, tags);
+    }
+
+    private byte[] readRaw(String key) {
+        return readRaw(key, keySerializer().serialize(key));
+    }
+
+    private byte[] readRaw(String key, byte[] rawKey) {
+        long stamp = localCacheTier.stamp();
+        long started = System.nanoTime();
+        byte[] raw = localCacheTier.tracksReads()
+                ? localCacheTier.readTracked(rawKey)
+                : redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+        cacheTimers.recordRedis(CacheTimers.RedisOp.GET, started);
+        if (raw != null) {
+            localCacheTier.putRead(key, raw, stamp);
+            return raw;
+        }
+        // Loaded, but still queued for Redis
+        return writeBehind.pending(key);
+    }
+
+    /**
+     * Reads the keys as stored under their namespace's current generation.
+     *
+     * @return the values in key order, or null if Redis could not be read (every key is then a miss)
+     */
+    private List<byte[]> readRawAll(List<String> keys) {
+        try {
+            byte[][] rawKeys = new byte[keys.size()][];
+            List<String> stored = new ArrayList<>(keys.size());
+            for (int i = 0; i < rawKeys.length; i++) {
+                stored.add(generations.keyFor(keys.get(i)));
+                rawKeys[i] = keySerializer().serialize(stored.get(i));
+            }
+            long started = System.nanoTime();
+            List<byte[]> raw = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+            cacheTimers.recordRedis(CacheTimers.RedisOp.MGET, started);
+            if (writeBehind.isEnabled() && raw != null) {
+                raw = new ArrayList<>(raw);
+                for (int i = 0; i < raw.size(); i++) {
+                    if (raw.get(i) == null) {
+                        raw.set(i, writeBehind.pending(stored.get(i)));
+                    }
+                }
+            }
+            return raw;
+        } catch (Exception e) {
+            log.error("Error getting {} keys from cache", keys.size(), e);
+            return null;
+        }
+    }
+
+    private void writeRaw(String key, byte[] raw, long ttlSeconds, Set<String> tags) {
+        if (!writeBehind.enqueue(key, raw, ttlSeconds, tags)) {
+            writeRawNow(key, raw, ttlSeconds, tags);
+        }
+        localCacheTier.put(key, raw, ttlSeconds);
+    }
+
+    /**
+     * SET, pipelined with the tag updates when there are tags so tagging costs no extra round trip.
+     */
+    private void writeRawNow(String key, byte[] raw, long ttlSeconds, Set<String> tags) {
+        byte[] rawKey = keySerializer().serialize(key);
+        long started = System.nanoTime();
+        if (tags.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                    .set(rawKey, raw, Expiration.seconds(ttlSeconds), RedisStringCommands.SetOption.upsert()));
+        } else {
+            tagIndex.withScripts(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.stringCommands().set(rawKey, raw, Expiration.seconds(ttlSeconds),
+                        RedisStringCommands.SetOption.upsert());
+                tagIndex.tag(connection, rawKey, ttlSeconds, tags);
+                return null;
+            }));
+        }
+        cacheTimers.recordRedis(CacheTimers.RedisOp.SET, started);
+    }
+
+    /**
+     * Writes all entries in one pipeline so a bulk load costs a single round trip; with
+     * write-behind on they are queued instead and the flusher pipelines them. Keys are the
+     * ones the bulk loader knows and are mapped to their current generation here.
+     */
+    private void writeRawAll(Map<String, byte[]> raw, Map<String, Long> ttls, Set<String> tags) {
+        Map<String, String> stored = new HashMap<>();
+        raw.keySet().forEach(key -> stored.put(key, generations.keyFor(key)));
+        if (writeBehind.isEnabled()) {
+            raw.forEach((key, value) -> writeRaw(stored.get(key), value, ttls.get(key), tags));
+            return;
+        }
+        long started = System.nanoTime();
+        Supplier<List<Object>> writeAll = () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            raw.forEach((key, value) -> {
+                byte[] rawKey = keySerializer().serialize(stored.get(key));
+                connection.stringCommands().set(rawKey, value, Expiration.seconds(ttls.get(key)),
+                        RedisStringCommands.SetOption.upsert());
+                if (!tags.isEmpty()) {
+                    tagIndex.tag(connection, rawKey, ttls.get(key), tags);
+                }
+            });
+            return null;
+        });
+        if (tags.isEmpty()) {
+            writeAll.get();
+        } else {
+            tagIndex.withScripts(writeAll);
+        }
+        cacheTimers.recordRedis(CacheTimers.RedisOp.SET, started);
+        raw.forEach((key, value) -> localCacheTier.put(stored.get(key), value, ttls.get(key)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<String> keySerializer() {
+        return (RedisSerializer<String>) redisTemplate.getKeySerializer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    /**
+     * Reads an entry without loading or refreshing it, for callers that load and
+     * {@link #put} on their own.
+     *
+     * @return the entry (possibly negative), or null when the key is not cached
+     */
+    public <T> CachedItem<T> peek(String key) {
+        key = generations.keyFor(key);
+        CachedItem<T> item = getFromCache(key);
+        if (item == null) {
+            cacheMetrics.record(key, CacheMetrics.Tier.MISS);
+            return null;
+        }
+        cacheMetrics.record(key, item.isNegative() ? CacheMetrics.Tier.NEGATIVE_HIT : CacheMetrics.Tier.REDIS_HIT);
+        return item;
+    }
+
+    /**
+     * Stores a value with a jittered TTL; null is stored as a negative entry.
+     */
+    public <T> void put(String key, T value, long ttlSeconds) {
+        put(key, value, ttlSeconds, Set.of());
+    }
+
+    /**
+     * Same as {@link #put(String, Object, long)}, adding the entry to each tag for {@link #invalidateTag}.
+     */
+    public <T> void put(String key, T value, long ttlSeconds, Set<String> tags) {
+        key = generations.keyFor(key);
+        if (value == null) {
+            setNegativeCache(key, tags);
+        } else {
+            setCache(key, value, addJitter(ttlSeconds), tags);
+        }
+        singleFlight.forget(key);
+    }
+
     public void invalidate(String key) {
+        key = generations.keyFor(key);
+        writeBehind.cancel(key);
         redisTemplate.delete(key);
+        localCacheTier.invalidate(key);
+        singleFlight.forget(key);
         log.debug("Invalidated cache key: {}", key);
     }
 
+    /**
+     * Deletes every entry written with the tag, in batches that are each an atomic Lua
+     * script, and drops their local and queued copies.
+     *
+     * @return the number of entries deleted
+     */
+    public long invalidateTag(String tag) {
+        // Queued writes are not in the tag's set yet; this also waits out ones being flushed
+        writeBehind.cancelTagged(tag, key -> {
+            localCacheTier.invalidate(key);
+            singleFlight.forget(key);
+        });
+        long deleted = tagIndex.invalidate(tag, key -> {
+            // A write already on the wire may have landed after the script's delete
+            if (writeBehind.cancel(key)) {
+                redisTemplate.delete(key);
+            }
+            localCacheTier.invalidate(key);
+            singleFlight.forget(key);
+        });
+        log.debug("Invalidated {} keys tagged: {}", deleted, tag);
+        return deleted;
+    }
+
+    /**
+     * Invalidates every entry of a namespace (the key part before the first ':') in O(1)
+     * by moving it to a new generation; entries stored under the old one are no longer
+     * read and expire through their TTL. Other nodes follow within
+     * {@code cache.generation-refresh-ms}.
+     *
+     * @return the namespace's new generation
+     */
+    public long invalidateNamespace(String namespace) {
+        long generation = generations.bump(namespace);
+        // New lookups use the new generation's keys anyway; this covers ones that mapped before the bump
+        singleFlight.forgetAll();
+        log.debug("Namespace {} moved to generation {}", namespace, generation);
+        return generation;
+    }
+
+    /**
+     * Deletes every key matching a glob pattern, walking the keyspace with SCAN rather
+     * than KEYS so Redis is never blocked on a large keyspace.
+     *
+     * @return the number of keys deleted
+     */
+    public long invalidateMatching(String pattern) {
+        writeBehind.cancelMatching(pattern);
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(INVALIDATE_BATCH).build();
+        List<String> batch = new ArrayList<>(INVALIDATE_BATCH);
+        long deleted = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == INVALIDATE_BATCH) {
+                    deleted += unlink(batch);
+                }
+            }
+        }
+        deleted += unlink(batch);
+        // The local tier and linger window have no pattern index; dropping them is cheap and only costs reads
+        localCacheTier.invalidateAll();
+        singleFlight.forgetAll();
+        log.debug("Invalidated {} keys matching: {}", deleted, pattern);
+        return deleted;
+    }
+
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long removed = redisTemplate.unlink(keys);
+        keys.clear();
+        return removed == null ? 0 : removed;
+    }
+
     public <T> void warm(String key, Supplier<T> loader, long ttl) {
         T value = loader.get();
         if (value != null) {
-            setCache(key, value, ttl);
+            key = generations.keyFor(key);
+            setCache(key, value, ttl, Set.of());
+            singleFlight.forget(key);
+        }
+    }
+
+    /**
+     * What a lookup does around the loader: whether a null result is stored as a negative
+     * entry, whether a loader failure falls back to the last cached value, and which tags
+     * the entries it writes are added to.
+     */
+    public record LookupPolicy(boolean cacheNulls, boolean serveStale, Set<String> tags) {
+        public static final LookupPolicy DEFAULT = new LookupPolicy(true, false);
+        public static final LookupPolicy SERVE_STALE = new LookupPolicy(true, true);
+
+        public LookupPolicy(boolean cacheNulls, boolean serveStale) {
+            this(cacheNulls, serveStale, Set.of());
+        }
+
+        /**
+         * @return this policy, with loaded entries also added to the given tags
+         */
+        public LookupPolicy withTags(String... tags) {
+            return new LookupPolicy(cacheNulls, serveStale, Set.of(tags));
         }
     }
-}
\ No newline at end of file
+}
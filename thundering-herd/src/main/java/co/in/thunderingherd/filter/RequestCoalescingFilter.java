@@ -0,0 +1,281 @@
+package co.in.thunderingherd.filter;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces identical GET requests that are in flight at the same time on opted-in routes:
+ * the first request runs the handler with its response buffered, and every identical
+ * request arriving meanwhile waits and receives a replay of the same status, headers and
+ * bytes. Requests are identical when their normalized path, query parameters and the
+ * configured vary headers match.
+ *
+ * Anything that could make a shared response wrong is left alone: conditional and
+ * authorized requests bypass the filter, and error responses (4xx/5xx) and responses that
+ * set cookies, vary on other headers or exceed the size limit are not replayed (waiters
+ * then run the request themselves), so one failed request is never fanned out to every
+ * waiter. No route coalesces unless it is listed in {@code coalescing.paths}.
+ */
+@Slf4j
+@Component
+public class RequestCoalescingFilter extends OncePerRequestFilter {
+
+    private static final Set<String> UNREPLAYED_HEADERS = Set.of(
+            "content-length", "content-type", "transfer-encoding", "connection", "keep-alive", "date");
+
+    private final ThunderingHerdProperties.CoalescingConfig config;
+    private final List<PathPattern> patterns;
+    private final Set<String> varyHeaders;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final Counter[] counters = new Counter[Result.values().length];
+
+    public RequestCoalescingFilter(ThunderingHerdProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getCoalescing();
+        this.patterns = config.getPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+        this.varyHeaders = config.getVaryHeaders().stream()
+                .map(header -> header.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+
+        for (Result result : Result.values()) {
+            counters[result.ordinal()] = Counter.builder("http.coalescing.requests")
+                    .description("Requests on coalescing routes by how they were served")
+                    .tag("result", result.tagValue())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("http.coalescing.waiters", waiters, AtomicInteger::get)
+                .description("Requests currently waiting for an identical in-flight response")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (patterns.isEmpty()
+                || !"GET".equals(request.getMethod())
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null
+                || request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = coalescingKey(request);
+
+        InFlight existing = inFlight.get(key);
+        if (existing == null) {
+            if (inFlight.size() >= config.getMaxInFlightKeys()) {
+                record(Result.LIMITED);
+                chain.doFilter(request, response);
+                return;
+            }
+            InFlight created = new InFlight();
+            existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                lead(key, created, request, response, chain);
+                return;
+            }
+        }
+
+        if (existing.waiters.incrementAndGet() > config.getMaxWaitersPerKey()) {
+            existing.waiters.decrementAndGet();
+            record(Result.LIMITED);
+            chain.doFilter(request, response);
+            return;
+        }
+        follow(existing, request, response, chain);
+    }
+
+    public int waiterCount() {
+        return waiters.get();
+    }
+
+    private void lead(String key, InFlight call, HttpServletRequest request, HttpServletResponse response,
+                      FilterChain chain) throws ServletException, IOException {
+        record(Result.LEADER);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        CapturedResponse captured = null;
+        try {
+            chain.doFilter(request, wrapper);
+            if (request.isAsyncStarted()) {
+                log.warn("Coalescing route {} started async processing; it cannot be replayed", request.getRequestURI());
+            } else {
+                captured = capture(wrapper);
+            }
+        } finally {
+            inFlight.remove(key, call);
+            // null tells waiters to run the request themselves
+            call.response.complete(captured);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void follow(InFlight call, HttpServletRequest request, HttpServletResponse response,
+                        FilterChain chain) throws ServletException, IOException {
+        CapturedResponse captured = null;
+        Result result = Result.UNREPLAYABLE;
+        waiters.incrementAndGet();
+        try {
+            captured = call.response.get(config.getWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result = Result.TIMEOUT;
+        } catch (ExecutionException e) {
+            log.debug("Coalesced leader failed for {}", request.getRequestURI(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted waiting for a coalesced response", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+
+        if (captured == null) {
+            record(result);
+            chain.doFilter(request, response);
+            return;
+        }
+        record(Result.COALESCED);
+        captured.replay(response);
+    }
+
+    /**
+     * @return the response to replay, or null when sharing it with other clients would be unsafe
+     */
+    private CapturedResponse capture(ContentCachingResponseWrapper wrapper) {
+        if (wrapper.getStatus() >= 400
+                || wrapper.getContentSize() > config.getMaxBodyBytes()
+                || wrapper.getHeader(HttpHeaders.SET_COOKIE) != null
+                || !varyCovered(wrapper.getHeaders(HttpHeaders.VARY))) {
+            return null;
+        }
+
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : wrapper.getHeaderNames()) {
+            if (!UNREPLAYED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, new ArrayList<>(wrapper.getHeaders(name)));
+            }
+        }
+        return new CapturedResponse(wrapper.getStatus(), wrapper.getContentType(), headers,
+                wrapper.getContentAsByteArray());
+    }
+
+    private boolean varyCovered(Iterable<String> varyValues) {
+        for (String value : varyValues) {
+            for (String header : value.split(",")) {
+                String name = header.trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty() && !varyHeaders.contains(name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Path with repeated slashes collapsed, query parameters sorted by name with each
+     * one's values in request order (handlers can see that order), then the configured
+     * vary headers.
+     */
+    private String coalescingKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(128)
+                .append(request.getRequestURI().replaceAll("/{2,}", "/"));
+
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+
+        for (String header : config.getVaryHeaders()) {
+            key.append('\n').append(header).append(':');
+            for (String value : Collections.list(request.getHeaders(header))) {
+                key.append(value).append(',');
+            }
+        }
+        return key.toString();
+    }
+
+    private void record(Result result) {
+        counters[result.ordinal()].increment();
+    }
+
+    private static final class InFlight {
+        private final CompletableFuture<CapturedResponse> response = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    private record CapturedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+
+        void replay(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    enum Result {
+        /** Ran the handler and shared its response. */
+        LEADER,
+        /** Served from another request's response. */
+        COALESCED,
+        /** Waited, but the response could not be shared, so the handler ran again. */
+        UNREPLAYABLE,
+        /** Gave up waiting and ran the handler itself. */
+        TIMEOUT,
+        /** Over the in-flight key or waiter limit; ran without coalescing. */
+        LIMITED;
+
+        String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
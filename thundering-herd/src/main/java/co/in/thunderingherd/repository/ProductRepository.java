@@ -4,11 +4,14 @@ import co.in.thunderingherd.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findBySku(String sku);
+    List<Product> findBySkuIn(Collection<String> skus);
     boolean existsBySku(String sku);
 }
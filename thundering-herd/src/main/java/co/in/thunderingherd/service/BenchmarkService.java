@@ -0,0 +1,424 @@
+package co.in.thunderingherd.service;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.ReactiveSingleFlight;
+import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.model.Product;
+import co.in.thunderingherd.repository.ProductRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * Runs a matrix of strategies x concurrency x key distributions and persists every run
+ * as one JSON line (config, per-cell summary and full latency histogram) so runs from
+ * different releases can be compared against a chosen baseline.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BenchmarkService {
+
+    private static final int MISSING_KEYSPACE = 64;
+
+    private final ProductService productService;
+    private final DatabaseService databaseService;
+    private final LoadTestService loadTestService;
+    private final SingleFlight singleFlight;
+    private final ReactiveSingleFlight reactiveSingleFlight;
+    private final ProductRepository productRepository;
+    private final ThunderingHerdProperties properties;
+    private final ObjectMapper objectMapper = createObjectMapper();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "benchmark-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Validates the request and starts the matrix on the benchmark runner thread, so the
+     * caller is not held for the minutes a run can take.
+     *
+     * @return the run, completed once every cell has finished and the run was persisted
+     * @throws IllegalArgumentException when the request is invalid
+     * @throws IllegalStateException    when another run is in progress
+     */
+    public CompletableFuture<BenchmarkRun> run(MatrixRequest request) {
+        MatrixRequest config = request.withDefaults();
+        validate(config);
+
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A benchmark run is already in progress");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return runMatrix(config);
+                } finally {
+                    running.set(false);
+                }
+            }, runner);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private BenchmarkRun runMatrix(MatrixRequest config) {
+        List<String> skus = productRepository.findAll().stream().map(Product::getSku).sorted().toList();
+        if (skus.isEmpty()) {
+            throw new IllegalStateException("No products available to benchmark against");
+        }
+
+        Instant startedAt = Instant.now();
+        List<CellResult> cells = new ArrayList<>();
+        for (Strategy strategy : config.strategies()) {
+            for (KeyDistribution distribution : config.distributions()) {
+                for (int concurrency : config.concurrency()) {
+                    cells.add(runCell(strategy, distribution, concurrency, config, skus));
+                }
+            }
+        }
+
+        BenchmarkRun run = new BenchmarkRun(
+                UUID.randomUUID().toString().substring(0, 8),
+                config.label(),
+                startedAt,
+                Instant.now().toEpochMilli() - startedAt.toEpochMilli(),
+                environment(),
+                config,
+                cells
+        );
+        persist(run);
+        return run;
+    }
+
+    public List<RunSummary> listRuns() {
+        return readRuns().stream()
+                .map(run -> new RunSummary(run.id(), run.label(), run.startedAt(), run.durationMs(), run.cells().size()))
+                .toList();
+    }
+
+    public Optional<BenchmarkRun> findRun(String id) {
+        return readRuns().stream().filter(run -> run.id().equals(id)).findFirst();
+    }
+
+    public Comparison compare(String baselineId, String candidateId) {
+        BenchmarkRun baseline = findRun(baselineId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown baseline run: " + baselineId));
+        BenchmarkRun candidate = findRun(candidateId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown candidate run: " + candidateId));
+
+        Map<String, CellResult> baselineCells = new HashMap<>();
+        for (CellResult cell : baseline.cells()) {
+            baselineCells.put(cell.cellKey(), cell);
+        }
+
+        List<CellDelta> deltas = new ArrayList<>();
+        for (CellResult cell : candidate.cells()) {
+            CellResult before = baselineCells.get(cell.cellKey());
+            if (before == null) {
+                continue;
+            }
+            deltas.add(new CellDelta(
+                    cell.strategy(),
+                    cell.distribution(),
+                    cell.concurrency(),
+                    before.throughputRps(),
+                    cell.throughputRps(),
+                    percentChange(before.throughputRps(), cell.throughputRps()),
+                    before.latency().p99Micros(),
+                    cell.latency().p99Micros(),
+                    percentChange(before.latency().p99Micros(), cell.latency().p99Micros()),
+                    before.databaseQueries(),
+                    cell.databaseQueries()
+            ));
+        }
+
+        return new Comparison(baseline.id(), candidate.id(), deltas);
+    }
+
+    private CellResult runCell(Strategy strategy, KeyDistribution distribution, int concurrency,
+                               MatrixRequest config, List<String> skus) {
+        IntFunction<String> keys = distribution.picker(skus);
+
+        if (config.coldCache() && strategy.usesCache()) {
+            for (String sku : distribution.keyspace(skus)) {
+                productService.evictProduct(sku);
+            }
+        }
+        databaseService.resetQueryCount();
+        singleFlight.resetMetrics();
+        reactiveSingleFlight.resetMetrics();
+
+        log.info("Benchmark cell: {} / {} / concurrency {}", strategy, distribution, concurrency);
+        LoadTestService.RecordedRun recorded = strategy.run(loadTestService, productService,
+                concurrency, config.requestsPerCell(), keys, () -> false, null);
+
+        LatencyHistogram histogram = recorded.histogram();
+        return new CellResult(
+                strategy,
+                distribution,
+                concurrency,
+                histogram.count(),
+                recorded.errors(),
+                databaseService.getQueryCount(),
+                singleFlight.getMetrics().deduplications() + reactiveSingleFlight.getMetrics().deduplications(),
+                recorded.wallTimeNanos() / 1_000_000.0,
+                recorded.throughputPerSecond(),
+                histogram.summary(),
+                histogram.buckets()
+        );
+    }
+
+    private void validate(MatrixRequest config) {
+        if (config.requestsPerCell() < 1 || config.requestsPerCell() > properties.getBenchmark().getMaxRequestsPerCell()) {
+            throw new IllegalArgumentException("requestsPerCell must be between 1 and "
+                    + properties.getBenchmark().getMaxRequestsPerCell());
+        }
+        for (int concurrency : config.concurrency()) {
+            loadTestService.checkConcurrency(concurrency);
+        }
+    }
+
+    private Map<String, Object> environment() {
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", System.getProperty("java.version"));
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("simulatedDbLatencyMs", databaseService.getSimulatedLatencyMs());
+        environment.put("cache", properties.getCache());
+        environment.put("singleflight", properties.getSingleflight());
+        return environment;
+    }
+
+    private synchronized void persist(BenchmarkRun run) {
+        Path file = Path.of(properties.getBenchmark().getResultsFile());
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(file, objectMapper.writeValueAsString(run) + System.lineSeparator(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("Persisted benchmark run {} to {}", run.id(), file);
+        } catch (IOException e) {
+            log.error("Failed to persist benchmark run {}", run.id(), e);
+        }
+    }
+
+    private synchronized List<BenchmarkRun> readRuns() {
+        Path file = Path.of(properties.getBenchmark().getResultsFile());
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        List<BenchmarkRun> runs = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    runs.add(objectMapper.readValue(line, BenchmarkRun.class));
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable benchmark line: {}", e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read benchmark results from {}", file, e);
+        }
+        return runs;
+    }
+
+    private static double percentChange(double before, double after) {
+        if (before == 0) {
+            return 0.0;
+        }
+        return (after - before) / before * 100.0;
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
+    }
+
+    public enum Strategy {
+        BASELINE(false),
+        SINGLE_FLIGHT(false),
+        FULL(true),
+        FULL_WITH_STALE(true),
+        /** Full solution on the reactive cache manager, driven by non-blocking subscribers. */
+        REACTIVE(true);
+
+        private final boolean usesCache;
+
+        Strategy(boolean usesCache) {
+            this.usesCache = usesCache;
+        }
+
+        boolean usesCache() {
+            return usesCache;
+        }
+
+        /**
+         * Runs the strategy's load, on pool threads for the blocking strategies and as
+         * concurrent subscriptions for REACTIVE, so its requests never park a thread.
+         */
+        LoadTestService.RecordedRun run(LoadTestService loadTestService, ProductService productService,
+                                        int concurrency, int totalRequests, IntFunction<String> keys,
+                                        BooleanSupplier cancelled, LoadTestService.WindowListener listener) {
+            if (this == REACTIVE) {
+                return loadTestService.runRecordedReactive(concurrency, totalRequests,
+                        index -> cancelled.getAsBoolean() ? Mono.empty()
+                                : productService.getProductReactive(keys.apply(index)),
+                        listener);
+            }
+            return loadTestService.runRecorded(concurrency, totalRequests, index -> {
+                if (!cancelled.getAsBoolean()) {
+                    invoke(productService, keys.apply(index));
+                }
+            }, listener);
+        }
+
+        private Optional<Product> invoke(ProductService productService, String sku) throws Exception {
+            return switch (this) {
+                case BASELINE -> productService.getProductBaseline(sku);
+                case SINGLE_FLIGHT -> productService.getProductSingleFlight(sku);
+                case FULL -> productService.getProductFull(sku);
+                case FULL_WITH_STALE -> productService.getProductWithStale(sku);
+                case REACTIVE -> throw new IllegalStateException("REACTIVE runs through non-blocking subscribers");
+            };
+        }
+    }
+
+    public enum KeyDistribution {
+        /** Every request targets the same SKU - the classic stampede. */
+        HOT_KEY,
+        /** Requests rotate evenly over all seeded SKUs. */
+        UNIFORM,
+        /** Zipf(s=1.1) over the seeded SKUs: a few hot keys and a long tail. */
+        ZIPF,
+        /** SKUs that do not exist, exercising the negative-cache path. */
+        MISSING;
+
+        IntFunction<String> picker(List<String> skus) {
+            return switch (this) {
+                case HOT_KEY -> index -> skus.get(0);
+                case UNIFORM -> index -> skus.get(index % skus.size());
+                case ZIPF -> zipf(skus, 1.1);
+                case MISSING -> index -> "MISSING-" + (index % MISSING_KEYSPACE);
+            };
+        }
+
+        List<String> keyspace(List<String> skus) {
+            return switch (this) {
+                case HOT_KEY -> List.of(skus.get(0));
+                case UNIFORM, ZIPF -> skus;
+                case MISSING -> {
+                    List<String> missing = new ArrayList<>(MISSING_KEYSPACE);
+                    for (int i = 0; i < MISSING_KEYSPACE; i++) {
+                        missing.add("MISSING-" + i);
+                    }
+                    yield missing;
+                }
+            };
+        }
+
+        private static IntFunction<String> zipf(List<String> skus, double exponent) {
+            double[] cumulative = new double[skus.size()];
+            double sum = 0;
+            for (int rank = 0; rank < skus.size(); rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            double total = sum;
+            return index -> {
+                double target = ThreadLocalRandom.current().nextDouble() * total;
+                int slot = Arrays.binarySearch(cumulative, target);
+                return skus.get(slot >= 0 ? slot : Math.min(skus.size() - 1, -slot - 1));
+            };
+        }
+    }
+
+    public record MatrixRequest(String label,
+                                List<Strategy> strategies,
+                                List<Integer> concurrency,
+                                List<KeyDistribution> distributions,
+                                Integer requestsPerCell,
+                                Boolean coldCache) {
+
+        MatrixRequest withDefaults() {
+            return new MatrixRequest(
+                    label == null || label.isBlank() ? "run" : label,
+                    strategies == null || strategies.isEmpty() ? List.of(Strategy.values()) : strategies,
+                    concurrency == null || concurrency.isEmpty() ? List.of(10, 100) : concurrency,
+                    distributions == null || distributions.isEmpty() ? List.of(KeyDistribution.HOT_KEY) : distributions,
+                    requestsPerCell == null ? 500 : requestsPerCell,
+                    coldCache == null || coldCache
+            );
+        }
+    }
+
+    public record CellResult(Strategy strategy,
+                             KeyDistribution distribution,
+                             int concurrency,
+                             long requests,
+                             long errors,
+                             long databaseQueries,
+                             long deduplications,
+                             double wallTimeMs,
+                             double throughputRps,
+                             LatencyHistogram.Summary latency,
+                             List<LatencyHistogram.Bucket> histogram) {
+
+        String cellKey() {
+            return strategy + "/" + distribution + "/" + concurrency;
+        }
+    }
+
+    public record BenchmarkRun(String id,
+                               String label,
+                               Instant startedAt,
+                               long durationMs,
+                               Map<String, Object> environment,
+                               MatrixRequest config,
+                               List<CellResult> cells) {}
+
+    public record RunSummary(String id, String label, Instant startedAt, long durationMs, int cells) {}
+
+    public record CellDelta(Strategy strategy,
+                            KeyDistribution distribution,
+                            int concurrency,
+                            double baselineThroughputRps,
+                            double candidateThroughputRps,
+                            double throughputDeltaPercent,
+                            long baselineP99Micros,
+                            long candidateP99Micros,
+                            double p99DeltaPercent,
+                            long baselineDatabaseQueries,
+                            long candidateDatabaseQueries) {}
+
+    public record Comparison(String baselineId, String candidateId, List<CellDelta> cells) {}
+}
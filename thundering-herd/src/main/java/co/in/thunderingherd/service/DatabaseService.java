@@ -10,6 +10,8 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -50,6 +52,22 @@ public class DatabaseService {
         });
     }
 
+    /**
+     * One IN query for all SKUs, paying the simulated latency once.
+     */
+    public List<Product> queryProductsBySkus(Collection<String> skus) throws Exception {
+        return queryTimer.recordCallable(() -> {
+            queryCounter.increment();
+            queryCount.incrementAndGet();
+
+            log.debug("DB Query for {} SKUs", skus.size());
+
+            simulateLatency();
+
+            return productRepository.findBySkuIn(skus);
+        });
+    }
+
     public Optional<Product> queryProductById(Long id) throws Exception {
         return queryTimer.recordCallable(() -> {
             queryCounter.increment();
@@ -0,0 +1,171 @@
+package co.in.thunderingherd.service;
+
+import co.in.thunderingherd.core.ReactiveSingleFlight;
+import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.model.Product;
+import co.in.thunderingherd.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+/**
+ * Runs a load test in the background and streams one "window" event per second over SSE
+ * with throughput, latency percentiles and the DB queries / single-flight dedups observed
+ * in that window, followed by a "complete" event with the totals.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveLoadTestService {
+
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final LoadTestService loadTestService;
+    private final ProductService productService;
+    private final DatabaseService databaseService;
+    private final SingleFlight singleFlight;
+    private final ReactiveSingleFlight reactiveSingleFlight;
+    private final ProductRepository productRepository;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-load-test-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public SseEmitter start(BenchmarkService.Strategy strategy,
+                            BenchmarkService.KeyDistribution distribution,
+                            int concurrency,
+                            int totalRequests) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+
+        if (concurrency < 1 || concurrency > loadTestService.maxConcurrency()) {
+            sendQuietly(emitter, "failed", "Concurrency must be between 1 and " + loadTestService.maxConcurrency());
+            emitter.complete();
+            return emitter;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            sendQuietly(emitter, "failed", "A live load test is already running");
+            emitter.complete();
+            return emitter;
+        }
+
+        List<String> skus = productRepository.findAll().stream().map(Product::getSku).sorted().toList();
+        if (skus.isEmpty()) {
+            running.set(false);
+            sendQuietly(emitter, "failed", "No products available");
+            emitter.complete();
+            return emitter;
+        }
+
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        runner.execute(() -> {
+            try {
+                stream(emitter, cancelled, strategy, distribution.picker(skus), concurrency, totalRequests);
+            } finally {
+                running.set(false);
+            }
+        });
+        return emitter;
+    }
+
+    private void stream(SseEmitter emitter, AtomicBoolean cancelled, BenchmarkService.Strategy strategy,
+                        IntFunction<String> keys, int concurrency, int totalRequests) {
+        databaseService.resetQueryCount();
+        singleFlight.resetMetrics();
+        reactiveSingleFlight.resetMetrics();
+        long[] last = {0, 0};
+        long startedAt = System.currentTimeMillis();
+
+        LoadTestService.RecordedRun run = strategy.run(
+                loadTestService,
+                productService,
+                concurrency,
+                totalRequests,
+                keys,
+                cancelled::get,
+                window -> {
+                    long dbQueries = databaseService.getQueryCount();
+                    long dedups = deduplications();
+                    LiveWindow live = new LiveWindow(
+                            window.sequence(),
+                            System.currentTimeMillis() - startedAt,
+                            window.requests(),
+                            window.errors(),
+                            window.throughputRps(),
+                            window.latency().p50Micros(),
+                            window.latency().p95Micros(),
+                            window.latency().p99Micros(),
+                            window.latency().maxMicros(),
+                            dbQueries - last[0],
+                            dedups - last[1]
+                    );
+                    last[0] = dbQueries;
+                    last[1] = dedups;
+                    if (!cancelled.get()) {
+                        sendQuietly(emitter, "window", live);
+                    }
+                }
+        );
+
+        LatencyHistogram.Summary latency = run.histogram().summary();
+        sendQuietly(emitter, "complete", new LiveSummary(
+                strategy,
+                latency.count(),
+                run.errors(),
+                run.wallTimeNanos() / 1_000_000,
+                run.throughputPerSecond(),
+                latency,
+                databaseService.getQueryCount(),
+                deduplications()
+        ));
+        emitter.complete();
+    }
+
+    private long deduplications() {
+        return singleFlight.getMetrics().deduplications() + reactiveSingleFlight.getMetrics().deduplications();
+    }
+
+    private void sendQuietly(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Live load test client went away: {}", e.getMessage());
+        }
+    }
+
+    public record LiveWindow(int sequence,
+                             long elapsedMs,
+                             long requests,
+                             long errors,
+                             double throughputRps,
+                             long p50Micros,
+                             long p95Micros,
+                             long p99Micros,
+                             long maxMicros,
+                             long databaseQueries,
+                             long deduplications) {}
+
+    public record LiveSummary(BenchmarkService.Strategy strategy,
+                              long requests,
+                              long errors,
+                              long wallTimeMs,
+                              double throughputRps,
+                              LatencyHistogram.Summary latency,
+                              long databaseQueries,
+                              long deduplications) {}
+}
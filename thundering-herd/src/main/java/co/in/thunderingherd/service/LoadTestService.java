@@ -1,24 +1,58 @@
 package co.in.thunderingherd.service;
 
+import co.in.thunderingherd.config.ThunderingHerdProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 @Slf4j
 @Service
 public class LoadTestService {
 
+    private final int maxConcurrency;
     private final ExecutorService executorService;
+    private final ScheduledExecutorService windowScheduler;
 
-    public LoadTestService() {
-        this.executorService = Executors.newFixedThreadPool(1000);
+    public LoadTestService(ThunderingHerdProperties properties) {
+        this.maxConcurrency = Math.max(1, properties.getBenchmark().getMaxConcurrency());
+        this.executorService = Executors.newFixedThreadPool(maxConcurrency);
+        this.windowScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-windows");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the highest concurrency a run accepts: one worker thread per blocking request
+     */
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the pool cannot run that many requests at once,
+     *                                  rather than silently queueing the excess behind it
+     */
+    public void checkConcurrency(int concurrency) {
+        if (concurrency < 1 || concurrency > maxConcurrency) {
+            throw new IllegalArgumentException("concurrency must be between 1 and " + maxConcurrency
+                    + " (thundering-herd.benchmark.max-concurrency)");
+        }
     }
 
     public <T> List<T> simulateConcurrentRequests(int concurrency, Supplier<T> task) {
+        checkConcurrency(concurrency);
         CountDownLatch latch = new CountDownLatch(1);
         List<CompletableFuture<T>> futures = new ArrayList<>();
 
@@ -49,4 +83,191 @@ public class LoadTestService {
 
         return results;
     }
+
+    /**
+     * Runs {@code totalRequests} requests spread over {@code concurrency} workers that start together,
+     * recording each request's latency into a histogram. Results are discarded as they complete,
+     * so memory stays flat regardless of the request count.
+     */
+    public RecordedRun runRecorded(int concurrency, int totalRequests, Request request) {
+        return runRecorded(concurrency, totalRequests, request, null);
+    }
+
+    /**
+     * Same as {@link #runRecorded(int, int, Request)} but additionally reports a {@link Window}
+     * of throughput and latency to the listener once per second while the run is in progress,
+     * followed by a final partial window when it ends.
+     */
+    public RecordedRun runRecorded(int concurrency, int totalRequests, Request request, WindowListener listener) {
+        checkConcurrency(concurrency);
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        AtomicInteger nextIndex = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        WindowTracker windows = new WindowTracker(listener);
+        int workers = Math.max(1, Math.min(concurrency, totalRequests));
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+
+        for (int w = 0; w < workers; w++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int index;
+                while ((index = nextIndex.getAndIncrement()) < totalRequests) {
+                    long began = System.nanoTime();
+                    boolean failed = false;
+                    try {
+                        request.execute(index);
+                    } catch (Exception e) {
+                        failed = true;
+                        errors.increment();
+                        log.debug("Request {} failed: {}", index, e.getMessage());
+                    }
+                    long elapsed = System.nanoTime() - began;
+                    histogram.recordNanos(elapsed);
+                    windows.record(elapsed, failed);
+                }
+            }, executorService));
+        }
+
+        long began = System.nanoTime();
+        ScheduledFuture<?> ticker = listener == null ? null
+                : windowScheduler.scheduleAtFixedRate(windows::emit, 1, 1, TimeUnit.SECONDS);
+        start.countDown();
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.error("Error in recorded load run", e);
+        }
+        long wallNanos = System.nanoTime() - began;
+
+        if (ticker != null) {
+            ticker.cancel(false);
+            windows.emit();
+        }
+
+        return new RecordedRun(histogram, errors.sum(), wallNanos);
+    }
+
+    /**
+     * Non-blocking variant of {@link #runRecorded(int, int, Request, WindowListener)}: keeps
+     * {@code concurrency} requests subscribed at once and records each when its Mono
+     * terminates, so no thread is held while a request waits. Only the calling thread blocks,
+     * until the whole run has finished.
+     */
+    public RecordedRun runRecordedReactive(int concurrency, int totalRequests, ReactiveRequest request,
+                                           WindowListener listener) {
+        checkConcurrency(concurrency);
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        WindowTracker windows = new WindowTracker(listener);
+
+        long began = System.nanoTime();
+        ScheduledFuture<?> ticker = listener == null ? null
+                : windowScheduler.scheduleAtFixedRate(windows::emit, 1, 1, TimeUnit.SECONDS);
+        try {
+            Flux.range(0, totalRequests)
+                    .flatMap(index -> {
+                        long started = System.nanoTime();
+                        boolean[] failed = new boolean[1];
+                        return Mono.defer(() -> request.execute(index))
+                                .onErrorResume(e -> {
+                                    failed[0] = true;
+                                    errors.increment();
+                                    log.debug("Request {} failed: {}", index, e.getMessage());
+                                    return Mono.empty();
+                                })
+                                .doFinally(signal -> {
+                                    long elapsed = System.nanoTime() - started;
+                                    histogram.recordNanos(elapsed);
+                                    windows.record(elapsed, failed[0]);
+                                });
+                    }, Math.max(1, Math.min(concurrency, totalRequests)))
+                    .then()
+                    .block(Duration.ofMinutes(5));
+        } catch (Exception e) {
+            log.error("Error in recorded reactive load run", e);
+        }
+        long wallNanos = System.nanoTime() - began;
+
+        if (ticker != null) {
+            ticker.cancel(false);
+            windows.emit();
+        }
+
+        return new RecordedRun(histogram, errors.sum(), wallNanos);
+    }
+
+    @FunctionalInterface
+    public interface Request {
+        void execute(int index) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ReactiveRequest {
+        Mono<?> execute(int index);
+    }
+
+    @FunctionalInterface
+    public interface WindowListener {
+        void onWindow(Window window);
+    }
+
+    public record RecordedRun(LatencyHistogram histogram, long errors, long wallTimeNanos) {
+        public double throughputPerSecond() {
+            return wallTimeNanos == 0 ? 0.0 : histogram.count() * 1_000_000_000.0 / wallTimeNanos;
+        }
+    }
+
+    public record Window(int sequence, long durationMs, long requests, long errors,
+                         double throughputRps, LatencyHistogram.Summary latency) {}
+
+    /**
+     * Swaps in a fresh histogram per window so each report covers only the requests
+     * completed since the previous one.
+     */
+    private static final class WindowTracker {
+
+        private final WindowListener listener;
+        private final AtomicReference<Accumulator> current = new AtomicReference<>(new Accumulator());
+        private int sequence;
+
+        WindowTracker(WindowListener listener) {
+            this.listener = listener;
+        }
+
+        void record(long nanos, boolean failed) {
+            if (listener == null) {
+                return;
+            }
+            Accumulator accumulator = current.get();
+            accumulator.histogram.recordNanos(nanos);
+            if (failed) {
+                accumulator.errors.increment();
+            }
+        }
+
+        synchronized void emit() {
+            Accumulator finished = current.getAndSet(new Accumulator());
+            long durationNanos = System.nanoTime() - finished.startedNanos;
+            long requests = finished.histogram.count();
+            double throughput = durationNanos == 0 ? 0.0 : requests * 1_000_000_000.0 / durationNanos;
+            try {
+                listener.onWindow(new Window(++sequence, TimeUnit.NANOSECONDS.toMillis(durationNanos), requests,
+                        finished.errors.sum(), throughput, finished.histogram.summary()));
+            } catch (Exception e) {
+                log.warn("Window listener failed: {}", e.getMessage());
+            }
+        }
+
+        private static final class Accumulator {
+            private final long startedNanos = System.nanoTime();
+            private final LatencyHistogram histogram = new LatencyHistogram();
+            private final LongAdder errors = new LongAdder();
+        }
+    }
 }
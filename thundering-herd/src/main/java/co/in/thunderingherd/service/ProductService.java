@@ -1,31 +1,76 @@
 package co.in.thunderingherd.service;
 
 
+import co.in.thunderingherd.cache.HerdCacheable;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.CacheKey;
+import co.in.thunderingherd.core.CacheMetrics;
+import co.in.thunderingherd.core.LoaderRetry;
+import co.in.thunderingherd.core.LongKeyedCache;
+import co.in.thunderingherd.core.LongSingleFlight;
+import co.in.thunderingherd.core.ReactiveThunderingHerdCacheManager;
+import co.in.thunderingherd.core.RenderedBody;
 import co.in.thunderingherd.core.SingleFlight;
 import co.in.thunderingherd.core.ThunderingHerdCacheManager;
 import co.in.thunderingherd.model.Product;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ProductService {
 
     private final DatabaseService databaseService;
     private final ThunderingHerdCacheManager cacheManager;
+    private final ReactiveThunderingHerdCacheManager reactiveCacheManager;
     private final SingleFlight singleFlight;
-    private final MeterRegistry meterRegistry;
+    private final LoaderRetry loaderRetry;
 
-    private static final String CACHE_KEY_PREFIX = "product:";
+    private static final String PRODUCT_NAMESPACE = "product";
+    private static final String CACHE_KEY_PREFIX = PRODUCT_NAMESPACE + ":";
+    private static final String JSON_CACHE_KEY_PREFIX = "product-json:";
+    private static final String PRODUCTS_CACHE = "products";
     private static final long DEFAULT_TTL = 60;
+    private static final String ID_CACHE_KEY_PREFIX = "product-id:";
+    private static final int ID_CACHE_MAX_ENTRIES = 100_000;
+    // Bounds how long a node keeps serving an id after another node changed it
+    private static final long ID_CACHE_LOCAL_TTL_MS = 5_000;
+    private static final int ID_KEY_SLOTS = 4096;
+
+    private final ObjectMapper objectMapper = createObjectMapper();
+    private final LongKeyedCache<Product> productsById;
+    // Encoded product-id: keys of recently loaded ids, direct-mapped; a collision only costs a rebuild
+    private final IdKey[] idKeys = new IdKey[ID_KEY_SLOTS];
+    private final Function<IdKey, Product> queryById = this::queryProductById;
+
+    public ProductService(DatabaseService databaseService, ThunderingHerdCacheManager cacheManager,
+                          ReactiveThunderingHerdCacheManager reactiveCacheManager, SingleFlight singleFlight,
+                          LoaderRetry loaderRetry, ThunderingHerdProperties properties) {
+        this.databaseService = databaseService;
+        this.cacheManager = cacheManager;
+        this.reactiveCacheManager = reactiveCacheManager;
+        this.singleFlight = singleFlight;
+        this.loaderRetry = loaderRetry;
+        ThunderingHerdProperties.SingleFlightConfig config = properties.getSingleflight();
+        this.productsById = new LongKeyedCache<>(this::loadProductById, ID_CACHE_MAX_ENTRIES,
+                ID_CACHE_LOCAL_TTL_MS, ID_CACHE_LOCAL_TTL_MS,
+                new LongSingleFlight(ID_CACHE_KEY_PREFIX, config.getMaxWaitersPerKey(), config.getMaxInFlightKeys()));
+    }
 
     public Optional<Product> getProductBaseline(String sku) throws Exception {
         log.debug("Baseline strategy - No cache, direct DB query");
@@ -35,65 +80,205 @@ public class ProductService {
     public Optional<Product> getProductSingleFlight(String sku) throws Exception {
         log.debug("Single-flight strategy for SKU: {}", sku);
 
+        String key = CACHE_KEY_PREFIX + sku;
         Product product = singleFlight.execute(
-                CACHE_KEY_PREFIX + sku,
-                () -> {
+                key,
+                () -> loaderRetry.call(key, () -> {
                     try {
                         return Objects.requireNonNull(databaseService.queryProductBySku(sku).orElse(null));
                     } catch (Exception e) {
                         throw new RuntimeException(e);
                     }
-                }
+                })
         );
 
         return Optional.of(product);
     }
 
+    /**
+     * Full solution: the body only runs on a miss, once per key across concurrent callers.
+     * An unknown SKU is negatively cached and comes back empty.
+     */
+    @HerdCacheable(namespace = PRODUCT_NAMESPACE, key = "#sku", ttl = DEFAULT_TTL)
     public Optional<Product> getProductFull(String sku) throws Exception {
-        log.debug("Full solution strategy for SKU: {}", sku);
+        log.debug("Full solution strategy loading SKU: {}", sku);
+        return databaseService.queryProductBySku(sku);
+    }
 
-        Product product = cacheManager.get(
-                CACHE_KEY_PREFIX + sku,
-                () -> {
-                    trackCacheMiss();
-                    try {
-                        return Objects.requireNonNull(databaseService.queryProductBySku(sku).orElse(null));
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                },
-                DEFAULT_TTL
-        );
+    @HerdCacheable(namespace = PRODUCT_NAMESPACE, key = "#sku", ttl = DEFAULT_TTL, serveStale = true)
+    public Optional<Product> getProductWithStale(String sku) throws Exception {
+        log.debug("Full solution with stale fallback loading SKU: {}", sku);
+        return databaseService.queryProductBySku(sku);
+    }
 
-        trackCacheHit();
+    /**
+     * Entity lookup for many SKUs: cached SKUs come from one MGET, the rest from one
+     * bulk query. Unknown SKUs are left out of the result.
+     */
+    @HerdCacheable(namespace = PRODUCT_NAMESPACE, ttl = DEFAULT_TTL, bulk = true)
+    public Map<String, Product> getProducts(List<String> skus) throws Exception {
+        log.debug("Bulk loading {} SKUs", skus.size());
+        Map<String, Product> bySku = new HashMap<>();
+        for (Product product : databaseService.queryProductsBySkus(skus)) {
+            bySku.put(product.getSku(), product);
+        }
+        return bySku;
+    }
 
-        return Optional.of(product);
+    /**
+     * Id lookup on primitive keys: hits are served from an in-process {@link LongKeyedCache}
+     * without boxing the id or building a key, and concurrent misses for an id are coalesced
+     * before the shared product-id: Redis entry is read. An unknown id comes back empty.
+     */
+    public Optional<Product> getProductById(long id) throws Exception {
+        return Optional.ofNullable(productsById.get(id));
     }
 
-    public Optional<Product> getProductWithStale(String sku) throws Exception {
-        log.debug("Full solution with stale fallback for SKU: {}", sku);
+    public LongKeyedCache<Product> productsById() {
+        return productsById;
+    }
 
-        Product product = cacheManager.getWithStale(
+    private Product loadProductById(long id) {
+        int slot = (int) id & (ID_KEY_SLOTS - 1);
+        IdKey idKey = idKeys[slot];
+        if (idKey == null || idKey.id() != id) {
+            idKey = new IdKey(id, CacheKey.of(ID_CACHE_KEY_PREFIX, Long.toString(id)));
+            idKeys[slot] = idKey;
+        }
+        try {
+            return cacheManager.get(idKey.key(), queryById, idKey, DEFAULT_TTL,
+                    ThunderingHerdCacheManager.LookupPolicy.DEFAULT);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Product queryProductById(IdKey idKey) {
+        try {
+            return databaseService.queryProductById(idKey.id()).orElse(null);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Full solution on the reactive cache manager. It shares the product: entries with
+     * getProductFull; the blocking JPA lookup runs on the bounded loader scheduler.
+     */
+    public Mono<Product> getProductReactive(String sku) {
+        return reactiveCacheManager.getBlocking(
                 CACHE_KEY_PREFIX + sku,
+                () -> databaseService.queryProductBySku(sku).orElse(null),
+                DEFAULT_TTL
+        );
+    }
+
+    /**
+     * Full solution through the Spring Cache abstraction. With sync = true the lookup is a
+     * single ThunderingHerdCache.get(key, Callable), so it is protected the same way as
+     * getProductFull. An unknown SKU is negatively cached and comes back null.
+     */
+    @Cacheable(cacheNames = PRODUCTS_CACHE, key = "#sku", sync = true)
+    public Product getProductCacheable(String sku) throws Exception {
+        log.debug("@Cacheable strategy for SKU: {}", sku);
+        return databaseService.queryProductBySku(sku).orElse(null);
+    }
+
+    /**
+     * The product as pre-rendered JSON, cached separately from the entity so hits are
+     * served as bytes. An unknown SKU is negatively cached and comes back empty.
+     */
+    public Optional<RenderedBody> getProductJson(String sku) throws Exception {
+        RenderedBody body = cacheManager.getRendered(
+                JSON_CACHE_KEY_PREFIX + sku,
                 () -> {
                     try {
-                        return Objects.requireNonNull(databaseService.queryProductBySku(sku).orElse(null));
+                        return databaseService.queryProductBySku(sku).orElse(null);
                     } catch (Exception e) {
                         throw new RuntimeException(e);
                     }
                 },
+                this::render,
                 DEFAULT_TTL
         );
 
-        return Optional.of(product);
+        return Optional.ofNullable(body);
+    }
+
+    /**
+     * Resolves many SKUs through one MGET and a single bulk DB query for the misses,
+     * passing each SKU to onResult as soon as it is known. Unknown SKUs arrive empty.
+     */
+    public void streamProductsJson(List<String> skus, BiConsumer<String, Optional<RenderedBody>> onResult) throws Exception {
+        List<String> keys = skus.stream().map(sku -> JSON_CACHE_KEY_PREFIX + sku).toList();
+        cacheManager.getAllRendered(
+                keys,
+                this::loadProductsByKey,
+                this::render,
+                DEFAULT_TTL,
+                (key, body) -> onResult.accept(key.substring(JSON_CACHE_KEY_PREFIX.length()), Optional.ofNullable(body))
+        );
+    }
+
+    private Map<String, Product> loadProductsByKey(List<String> keys) {
+        List<String> skus = keys.stream().map(key -> key.substring(JSON_CACHE_KEY_PREFIX.length())).toList();
+        try {
+            Map<String, Product> byKey = new HashMap<>();
+            for (Product product : databaseService.queryProductsBySkus(skus)) {
+                byKey.put(JSON_CACHE_KEY_PREFIX + product.getSku(), product);
+            }
+            return byKey;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The ETag of the cached rendered product, if there is one, without loading the body.
+     */
+    public Optional<String> getProductEtag(String sku) {
+        return Optional.ofNullable(cacheManager.getRenderedEtag(JSON_CACHE_KEY_PREFIX + sku));
+    }
+
+    private byte[] render(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render product " + product.getSku(), e);
+        }
     }
 
     public Product saveProduct(Product product) {
         Product saved = databaseService.save(product);
-        cacheManager.invalidate(CACHE_KEY_PREFIX + saved.getSku());
+        evictProduct(saved.getSku());
+        if (saved.getId() != null) {
+            cacheManager.invalidate(ID_CACHE_KEY_PREFIX + saved.getId());
+            productsById.invalidate(saved.getId());
+        }
         return saved;
     }
 
+    public void evictProduct(String sku) {
+        cacheManager.invalidate(CACHE_KEY_PREFIX + sku);
+        cacheManager.invalidate(JSON_CACHE_KEY_PREFIX + sku);
+        // Called from saveProduct, where a @CacheEvict would not go through the proxy
+        cacheManager.invalidate(PRODUCTS_CACHE + "::" + sku);
+    }
+
+    /**
+     * Drops every cached product, e.g. after a bulk price import, without touching keys
+     * one by one: each product namespace moves to a new generation.
+     */
+    public void evictAllProducts() {
+        cacheManager.invalidateNamespace(PRODUCT_NAMESPACE);
+        cacheManager.invalidateNamespace(CacheMetrics.namespaceOf(JSON_CACHE_KEY_PREFIX));
+        cacheManager.invalidateNamespace(CacheMetrics.namespaceOf(ID_CACHE_KEY_PREFIX));
+        cacheManager.invalidateNamespace(PRODUCTS_CACHE);
+        productsById.clear();
+    }
+
     public void warmCache(String sku) {
         cacheManager.warm(
                 CACHE_KEY_PREFIX + sku,
@@ -108,17 +293,16 @@ public class ProductService {
         );
     }
 
-    private void trackCacheHit() {
-        Counter.builder("cache.hits")
-                .description("Cache hit count")
-                .register(meterRegistry)
-                .increment();
+    private static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
     }
 
-    private void trackCacheMiss() {
-        Counter.builder("cache.misses")
-                .description("Cache miss count")
-                .register(meterRegistry)
-                .increment();
+    /**
+     * An id with its encoded Redis key; also the loader argument, so the id is not boxed.
+     */
+    private record IdKey(long id, CacheKey key) {
     }
 }
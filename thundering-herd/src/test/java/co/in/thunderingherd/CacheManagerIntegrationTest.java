@@ -3,12 +3,16 @@ package co.in.thunderingherd;
 
 import co.in.thunderingherd.config.ThunderingHerdProperties;
 
+import co.in.thunderingherd.core.CacheTimers;
+import co.in.thunderingherd.core.RenderedBody;
 import co.in.thunderingherd.core.ThunderingHerdCacheManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -17,6 +21,9 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,6 +56,12 @@ class CacheManagerIntegrationTest {
     @Autowired
     private ThunderingHerdProperties properties;
 
+    @Autowired
+    private CacheTimers cacheTimers;
+
+    @Autowired
+    private CacheManager springCacheManager;
+
     private AtomicInteger loaderCallCount;
 
     @BeforeEach
@@ -99,6 +112,55 @@ class CacheManagerIntegrationTest {
         assertEquals(1, loaderCallCount.get(), "Loader should not be called for negative cache");
     }
 
+    @Test
+    @DisplayName("Should invalidate a whole namespace by bumping its generation")
+    void testInvalidateNamespace() throws Exception {
+        cacheManager.get("gen:a", () -> {
+            loaderCallCount.incrementAndGet();
+            return "v1";
+        });
+        cacheManager.get("other:a", () -> {
+            loaderCallCount.incrementAndGet();
+            return "o1";
+        });
+
+        assertTrue(cacheManager.invalidateNamespace("gen") > 0);
+
+        assertEquals("v2", cacheManager.get("gen:a", () -> {
+            loaderCallCount.incrementAndGet();
+            return "v2";
+        }));
+        assertEquals("o1", cacheManager.get("other:a", () -> {
+            loaderCallCount.incrementAndGet();
+            return "o2";
+        }));
+        assertEquals(3, loaderCallCount.get(), "Only the bumped namespace should reload");
+        assertTrue(redisTemplate.hasKey("gen:a"), "The old generation is left to expire through its TTL");
+    }
+
+    @Test
+    @DisplayName("Should invalidate every entry carrying a tag and nothing else")
+    void testInvalidateTag() throws Exception {
+        ThunderingHerdCacheManager.LookupPolicy tagged = ThunderingHerdCacheManager.LookupPolicy.DEFAULT
+                .withTags("category:shoes");
+        for (int i = 0; i < 2500; i++) {
+            cacheManager.put("tagged:" + i, "v" + i, 60, Set.of("category:shoes"));
+        }
+        cacheManager.get("tagged:loaded", () -> "loaded", 60, tagged);
+        cacheManager.put("untagged:a", "a", 60);
+
+        Long tagTtl = redisTemplate.getExpire("thundering-herd:tag:category:shoes");
+        assertTrue(tagTtl != null && tagTtl >= 45, "The tag should live as long as its entries: " + tagTtl);
+
+        assertEquals(2501, cacheManager.invalidateTag("category:shoes"));
+
+        assertFalse(redisTemplate.hasKey("tagged:0"));
+        assertFalse(redisTemplate.hasKey("tagged:loaded"));
+        assertFalse(redisTemplate.hasKey("thundering-herd:tag:category:shoes"));
+        assertTrue(redisTemplate.hasKey("untagged:a"));
+        assertEquals(0, cacheManager.invalidateTag("category:shoes"));
+    }
+
     @Test
     @DisplayName("Should apply jitter to TTL")
     void testJitteredTTL() throws Exception {
@@ -292,4 +354,100 @@ class CacheManagerIntegrationTest {
         assertTrue(ttl >= 90 && ttl <= 150,
                 "TTL should be around custom value: " + ttl);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should time lookups by outcome along with Redis and codec time")
+    void testLookupTimers() throws Exception {
+        long loaded = cacheTimers.lookupTimer(CacheTimers.Outcome.LOADED).count();
+        long hits = cacheTimers.lookupTimer(CacheTimers.Outcome.REDIS_HIT).count();
+        long negative = cacheTimers.lookupTimer(CacheTimers.Outcome.NEGATIVE_HIT).count();
+
+        cacheManager.get("test:timed", () -> "value");
+        cacheManager.get("test:timed", () -> "value");
+        cacheManager.get("test:timed-missing", () -> null);
+        cacheManager.get("test:timed-missing", () -> null);
+
+        assertEquals(loaded + 2, cacheTimers.lookupTimer(CacheTimers.Outcome.LOADED).count());
+        assertEquals(hits + 1, cacheTimers.lookupTimer(CacheTimers.Outcome.REDIS_HIT).count());
+        assertEquals(negative + 1, cacheTimers.lookupTimer(CacheTimers.Outcome.NEGATIVE_HIT).count());
+    }
+
+    @Test
+    @DisplayName("Should serve rendered bytes from cache and negatively cache missing values")
+    void testRenderedBody() throws Exception {
+        String key = "test:rendered";
+        RenderedBody first = cacheManager.getRendered(key, () -> {
+            loaderCallCount.incrementAndGet();
+            return "value";
+        }, v -> ("\"" + v + "\"").getBytes(StandardCharsets.UTF_8), 60);
+        RenderedBody second = cacheManager.getRendered(key, () -> {
+            loaderCallCount.incrementAndGet();
+            return "other";
+        }, v -> ("\"" + v + "\"").getBytes(StandardCharsets.UTF_8), 60);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        second.writeTo(out);
+        assertEquals("\"value\"", out.toString(StandardCharsets.UTF_8));
+        assertEquals(first.etag(), second.etag());
+        assertEquals(first.etag(), cacheManager.getRenderedEtag(key));
+        assertEquals(1, loaderCallCount.get());
+
+        assertNull(cacheManager.getRendered("test:rendered-missing", () -> {
+            loaderCallCount.incrementAndGet();
+            return null;
+        }, v -> new byte[0], 60));
+        assertNull(cacheManager.getRendered("test:rendered-missing", () -> {
+            loaderCallCount.incrementAndGet();
+            return null;
+        }, v -> new byte[0], 60));
+        assertEquals(2, loaderCallCount.get(), "Missing value should be served from the negative entry");
+        assertNull(cacheManager.getRenderedEtag("test:rendered-missing"));
+        assertNull(cacheManager.getRenderedEtag("test:rendered-absent"));
+    }
+
+    @Test
+    @DisplayName("Should serve Spring Cache lookups through the herd manager")
+    void testSpringCacheAdapter() {
+        Cache cache = springCacheManager.getCache("test");
+        assertNotNull(cache);
+
+        assertEquals("value", cache.get("a", () -> {
+            loaderCallCount.incrementAndGet();
+            return "value";
+        }));
+        assertEquals("value", cache.get("a", () -> {
+            loaderCallCount.incrementAndGet();
+            return "other";
+        }));
+        assertTrue(redisTemplate.hasKey("test::a"));
+        assertEquals("value", cache.get("a", String.class));
+
+        assertNull(cache.get("missing", () -> {
+            loaderCallCount.incrementAndGet();
+            return null;
+        }));
+        Cache.ValueWrapper negative = cache.get("missing");
+        assertNotNull(negative, "Null result should be negatively cached");
+        assertNull(negative.get());
+        assertEquals(2, loaderCallCount.get());
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("failing", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        cache.clear();
+        assertNull(cache.get("a"));
+        assertNull(cache.get("missing"));
+
+        // Entries stored under a bumped generation are cleared too
+        cache.put("b", "before");
+        cacheManager.invalidateNamespace("test");
+        cache.put("c", "after");
+        cache.put("id#1", "hashed");
+        assertNull(cache.get("b"));
+        assertEquals("after", cache.get("c", String.class));
+        cache.clear();
+        assertNull(cache.get("c"));
+        assertNull(cache.get("id#1"));
+    }
+}
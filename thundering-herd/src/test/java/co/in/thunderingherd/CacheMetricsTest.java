@@ -0,0 +1,55 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.core.CacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CacheMetrics Tests")
+class CacheMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private CacheMetrics cacheMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cacheMetrics = new CacheMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Should split counts by namespace and tier")
+    void testNamespaceAndTierSplit() {
+        cacheMetrics.record("product:DEMO-001", CacheMetrics.Tier.REDIS_HIT);
+        cacheMetrics.record("product:DEMO-002", CacheMetrics.Tier.REDIS_HIT);
+        cacheMetrics.record("product:DEMO-003", CacheMetrics.Tier.MISS);
+        cacheMetrics.record("category:audio", CacheMetrics.Tier.NEGATIVE_HIT);
+        cacheMetrics.record("plain-key", CacheMetrics.Tier.MISS);
+
+        assertEquals(2, cacheMetrics.count("product", CacheMetrics.Tier.REDIS_HIT));
+        assertEquals(1, cacheMetrics.count("product", CacheMetrics.Tier.MISS));
+        assertEquals(0, cacheMetrics.count("product", CacheMetrics.Tier.NEGATIVE_HIT));
+        assertEquals(1, cacheMetrics.count("category", CacheMetrics.Tier.NEGATIVE_HIT));
+        assertEquals(1, cacheMetrics.count("default", CacheMetrics.Tier.MISS));
+    }
+
+    @Test
+    @DisplayName("Should register meters once per namespace and tag them")
+    void testMetersRegisteredOnce() {
+        for (int i = 0; i < 100; i++) {
+            cacheMetrics.record("product:" + i, CacheMetrics.Tier.REDIS_HIT);
+        }
+
+        double hits = registry.get("cache.lookups")
+                .tag("namespace", "product")
+                .tag("tier", "redis_hit")
+                .functionCounter()
+                .count();
+
+        assertEquals(100.0, hits);
+        assertEquals(CacheMetrics.Tier.values().length, registry.getMeters().size());
+    }
+}
@@ -0,0 +1,205 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.CacheTimers;
+import co.in.thunderingherd.core.CacheWriteBehind;
+import co.in.thunderingherd.core.TagIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CacheWriteBehind Tests")
+class CacheWriteBehindTest {
+
+    private final Map<String, byte[]> redis = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tagSets = new ConcurrentHashMap<>();
+    private final AtomicInteger scriptLoads = new AtomicInteger();
+    private volatile boolean scriptsCached;
+    private final CountDownLatch pipelineEntered = new CountDownLatch(1);
+    private final CountDownLatch releasePipeline = new CountDownLatch(1);
+    private CacheWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setCancelWaitMs(5000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BlockingPipelineTemplate redisTemplate = new BlockingPipelineTemplate();
+        writeBehind = new CacheWriteBehind(redisTemplate, new CacheTimers(registry),
+                new TagIndex(redisTemplate, properties), properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        releasePipeline.countDown();
+        writeBehind.destroy();
+    }
+
+    @Test
+    @DisplayName("An invalidation racing a write on the wire waits for it, so its delete is final")
+    void testCancelWaitsForInFlightWrite() throws Exception {
+        assertTrue(writeBehind.enqueue("product:A", bytes("v1"), 60, Set.of()));
+        assertTrue(pipelineEntered.await(5, TimeUnit.SECONDS));
+        assertArrayEquals(bytes("v1"), writeBehind.pending("product:A"), "Still served while being flushed");
+
+        // What ThunderingHerdCacheManager.invalidate does: cancel, then DEL
+        CompletableFuture<Boolean> invalidated = CompletableFuture.supplyAsync(() -> {
+            boolean wasSent = writeBehind.cancel("product:A");
+            redis.remove("product:A");
+            return wasSent;
+        });
+        Thread.sleep(100);
+        assertFalse(invalidated.isDone(), "The invalidation must not delete before the in-flight SET lands");
+
+        releasePipeline.countDown();
+        assertTrue(invalidated.get(5, TimeUnit.SECONDS));
+        assertNull(redis.get("product:A"));
+        assertNull(writeBehind.pending("product:A"));
+    }
+
+    @Test
+    @DisplayName("Shutdown drains queued writes without interrupting the flusher")
+    void testShutdownDrains() throws Exception {
+        releasePipeline.countDown();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(writeBehind.enqueue("product:" + i, bytes("v" + i), 60, Set.of()));
+        }
+        writeBehind.destroy();
+
+        assertEquals(100, redis.size());
+        assertEquals(0, writeBehind.queued());
+    }
+
+    @Test
+    @DisplayName("Tags are written by the flusher by SHA1, reloading the script after NOSCRIPT")
+    void testTagsFlushedWithScriptReload() throws Exception {
+        releasePipeline.countDown();
+        assertTrue(writeBehind.enqueue("product:A", bytes("v1"), 60, Set.of("sale")));
+        awaitWritten("product:A");
+        assertEquals(Set.of("product:A"), tagSets.get("thundering-herd:tag:sale"));
+        assertEquals(2, scriptLoads.get(), "Both scripts loaded once, before the first call");
+
+        // Redis restarted: the script cache is empty again
+        scriptsCached = false;
+        assertTrue(writeBehind.enqueue("product:B", bytes("v2"), 60, Set.of("sale")));
+        awaitWritten("product:B");
+        assertEquals(Set.of("product:A", "product:B"), tagSets.get("thundering-herd:tag:sale"));
+        assertEquals(4, scriptLoads.get(), "Loaded again after NOSCRIPT");
+    }
+
+    @Test
+    @DisplayName("Cancelling a tag drops only the queued writes carrying it")
+    void testCancelTagged() throws Exception {
+        assertTrue(writeBehind.enqueue("product:hold", bytes("v0"), 60, Set.of()));
+        assertTrue(pipelineEntered.await(5, TimeUnit.SECONDS));
+        assertTrue(writeBehind.enqueue("product:A", bytes("v1"), 60, Set.of("sale")));
+        assertTrue(writeBehind.enqueue("product:B", bytes("v2"), 60, Set.of("new")));
+
+        Set<String> cancelled = ConcurrentHashMap.newKeySet();
+        writeBehind.cancelTagged("sale", cancelled::add);
+        assertEquals(Set.of("product:A"), cancelled);
+        assertNull(writeBehind.pending("product:A"));
+
+        releasePipeline.countDown();
+        awaitWritten("product:B");
+        assertNull(redis.get("product:A"));
+        assertNull(tagSets.get("thundering-herd:tag:sale"));
+    }
+
+    private void awaitWritten(String key) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writeBehind.pending(key) != null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertNotNull(redis.get(key), key + " was not written");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs commands against maps, holding the first pipeline until released. Scripts are not
+     * run: a tag script call records its member in each tag's set.
+     */
+    private final class BlockingPipelineTemplate extends RedisTemplate<String, Object> {
+
+        BlockingPipelineTemplate() {
+            setKeySerializer(new StringRedisSerializer());
+        }
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            pipelineEntered.countDown();
+            try {
+                assertTrue(releasePipeline.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            action.doInRedis(connection());
+            return List.of();
+        }
+
+        @Override
+        public <T> T execute(RedisCallback<T> action) {
+            return action.doInRedis(connection());
+        }
+
+        private RedisConnection connection() {
+            return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{RedisConnection.class, RedisStringCommands.class, RedisScriptingCommands.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "stringCommands", "scriptingCommands" -> proxy;
+                        case "set" -> {
+                            redis.put(string((byte[]) args[0]), (byte[]) args[1]);
+                            yield Boolean.TRUE;
+                        }
+                        case "scriptLoad" -> {
+                            scriptLoads.incrementAndGet();
+                            scriptsCached = true;
+                            yield "sha";
+                        }
+                        case "evalSha" -> {
+                            if (!scriptsCached) {
+                                throw new RedisSystemException("NOSCRIPT No matching script", null);
+                            }
+                            byte[][] keysAndArgs = (byte[][]) args[3];
+                            int tags = (Integer) args[2];
+                            for (int i = 0; i < tags; i++) {
+                                tagSets.computeIfAbsent(string(keysAndArgs[i]), tag -> ConcurrentHashMap.newKeySet())
+                                        .add(string(keysAndArgs[tags]));
+                            }
+                            yield (long) tags;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private static String string(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
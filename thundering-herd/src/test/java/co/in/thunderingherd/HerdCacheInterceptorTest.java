@@ -0,0 +1,270 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.cache.HerdCacheInterceptor;
+import co.in.thunderingherd.cache.HerdCacheable;
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.CacheMetrics;
+import co.in.thunderingherd.core.CacheTimers;
+import co.in.thunderingherd.core.CacheWriteBehind;
+import co.in.thunderingherd.core.LoaderRetry;
+import co.in.thunderingherd.core.LocalCacheTier;
+import co.in.thunderingherd.core.NamespaceGenerations;
+import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.core.TagIndex;
+import co.in.thunderingherd.core.ThunderingHerdCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HerdCacheInterceptor Tests")
+class HerdCacheInterceptorTest {
+
+    private final Map<String, byte[]> redis = new ConcurrentHashMap<>();
+    private HerdCacheInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MapRedisTemplate redisTemplate = new MapRedisTemplate();
+        TagIndex tagIndex = new TagIndex(redisTemplate, properties);
+        ThunderingHerdCacheManager cacheManager = new ThunderingHerdCacheManager(redisTemplate, new SingleFlight(),
+                properties, new CacheMetrics(registry), new CacheTimers(registry), new LocalCacheTier(properties),
+                new LoaderRetry(properties, registry),
+                new CacheWriteBehind(redisTemplate, new CacheTimers(registry), tagIndex, properties, registry),
+                new NamespaceGenerations(redisTemplate, properties),
+                tagIndex);
+        interceptor = new HerdCacheInterceptor(() -> cacheManager, () -> properties);
+    }
+
+    private <T> T proxy(T target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(interceptor);
+        @SuppressWarnings("unchecked")
+        T proxy = (T) factory.getProxy();
+        return proxy;
+    }
+
+    @Test
+    @DisplayName("Should key by a named or indexed parameter as-is and evaluate other expressions with SpEL")
+    void testKeys() {
+        Products target = new Products();
+        Products products = proxy(target);
+
+        assertEquals("first:A", products.byDefault("A"));
+        assertEquals("name:A", products.byName("A"));
+        assertEquals("index:A", products.byIndex("eu", "A"));
+        assertEquals("spel:A@eu", products.bySpel("A", "eu"));
+        assertTrue(redis.keySet().containsAll(List.of("t:A", "n:A", "i:A", "s:A@eu")), redis.keySet().toString());
+
+        assertEquals("name:A", products.byName("A"));
+        assertEquals("spel:A@eu", products.bySpel("A", "eu"));
+        assertEquals(4, target.calls.size(), "Hits must not run the method");
+    }
+
+    @Test
+    @DisplayName("Should cache Optional results unwrapped and empty ones as negative entries")
+    void testOptionalAndNegativeCaching() {
+        Products target = new Products();
+        Products products = proxy(target);
+
+        assertEquals(Optional.of("found:A"), products.find("A"));
+        assertEquals(Optional.of("found:A"), products.find("A"));
+        assertTrue(new String(redis.get("o:A"), StandardCharsets.UTF_8).contains("found:A"));
+
+        assertEquals(Optional.empty(), products.find("missing"));
+        assertEquals(Optional.empty(), products.find("missing"));
+        assertEquals(List.of("find:A", "find:missing"), target.calls, "Empty results are negatively cached");
+
+        assertNull(products.uncachedNull("B"));
+        assertNull(products.uncachedNull("B"));
+        assertEquals(2, target.calls.stream().filter("null:B"::equals).count(), "cacheNulls = false stores nothing");
+    }
+
+    @Test
+    @DisplayName("Should rethrow the method's own checked exception rather than a wrapper")
+    void testCheckedExceptionIsUnwrapped() {
+        Products target = new Products();
+        Products products = proxy(target);
+
+        IOException thrown = assertThrows(IOException.class, () -> products.failing("A"));
+        assertEquals("disk gone", thrown.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should load only the missing elements in bulk and keep input order")
+    void testBulk() {
+        Products target = new Products();
+        Products products = proxy(target);
+
+        Map<String, String> first = products.bulk(List.of("A", "B", "missing"));
+        assertEquals(List.of("A", "B"), new ArrayList<>(first.keySet()));
+        assertEquals("bulk:A", first.get("A"));
+
+        Map<String, String> second = products.bulk(List.of("C", "A"));
+        assertEquals(List.of("C", "A"), new ArrayList<>(second.keySet()));
+        assertEquals(List.of("bulk:[A, B, missing]", "bulk:[C]"), target.calls);
+    }
+
+    @Test
+    @DisplayName("Should reject bulk methods that do not take one List and return a Map, or ask for serveStale")
+    void testBulkValidation() {
+        InvalidBulk invalid = proxy(new InvalidBulk());
+
+        assertThrows(IllegalStateException.class, () -> invalid.notAList("A"));
+        assertThrows(IllegalStateException.class, () -> invalid.notAMap(List.of("A")));
+        assertThrows(IllegalStateException.class, () -> invalid.twoParameters(List.of("A"), "eu"));
+        assertThrows(IllegalStateException.class, () -> invalid.stale(List.of("A")));
+    }
+
+    static class Products {
+
+        final List<String> calls = new ArrayList<>();
+
+        @HerdCacheable(namespace = "t")
+        public String byDefault(String sku) {
+            calls.add("default:" + sku);
+            return "first:" + sku;
+        }
+
+        @HerdCacheable(namespace = "n", key = "#sku")
+        public String byName(String sku) {
+            calls.add("name:" + sku);
+            return "name:" + sku;
+        }
+
+        @HerdCacheable(namespace = "i", key = "#p1")
+        public String byIndex(String region, String sku) {
+            calls.add("index:" + sku);
+            return "index:" + sku;
+        }
+
+        @HerdCacheable(namespace = "s", key = "#sku + '@' + #region")
+        public String bySpel(String sku, String region) {
+            calls.add("spel:" + sku);
+            return "spel:" + sku + "@" + region;
+        }
+
+        @HerdCacheable(namespace = "o")
+        public Optional<String> find(String sku) {
+            calls.add("find:" + sku);
+            return "missing".equals(sku) ? Optional.empty() : Optional.of("found:" + sku);
+        }
+
+        @HerdCacheable(namespace = "u", cacheNulls = false)
+        public String uncachedNull(String sku) {
+            calls.add("null:" + sku);
+            return null;
+        }
+
+        @HerdCacheable(namespace = "f")
+        public String failing(String sku) throws IOException {
+            throw new IOException("disk gone");
+        }
+
+        @HerdCacheable(namespace = "b", bulk = true)
+        public Map<String, String> bulk(List<String> skus) {
+            calls.add("bulk:" + skus);
+            Map<String, String> found = new LinkedHashMap<>();
+            for (String sku : skus) {
+                if (!"missing".equals(sku)) {
+                    found.put(sku, "bulk:" + sku);
+                }
+            }
+            return found;
+        }
+    }
+
+    static class InvalidBulk {
+
+        @HerdCacheable(namespace = "x", bulk = true)
+        public Map<String, String> notAList(String sku) {
+            return Map.of();
+        }
+
+        @HerdCacheable(namespace = "x", bulk = true)
+        public List<String> notAMap(List<String> skus) {
+            return skus;
+        }
+
+        @HerdCacheable(namespace = "x", bulk = true)
+        public Map<String, String> twoParameters(List<String> skus, String region) {
+            return Map.of();
+        }
+
+        @HerdCacheable(namespace = "x", bulk = true, serveStale = true)
+        public Map<String, String> stale(List<String> skus) {
+            return Map.of();
+        }
+    }
+
+    /**
+     * Serves GET, MGET and (pipelined) SET from a map, with the application's key and value serializers.
+     */
+    private final class MapRedisTemplate extends RedisTemplate<String, Object> {
+
+        MapRedisTemplate() {
+            setKeySerializer(new StringRedisSerializer());
+            setValueSerializer(RedisSerializer.json());
+        }
+
+        @Override
+        public <T> T execute(RedisCallback<T> action) {
+            return action.doInRedis(connection());
+        }
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            action.doInRedis(connection());
+            return List.of();
+        }
+
+        private RedisConnection connection() {
+            return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{RedisConnection.class, RedisStringCommands.class, RedisHashCommands.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "stringCommands", "hashCommands" -> proxy;
+                        case "get" -> redis.get(string((byte[]) args[0]));
+                        case "mGet" -> {
+                            List<byte[]> values = new ArrayList<>();
+                            for (byte[] key : (byte[][]) args[0]) {
+                                values.add(redis.get(string(key)));
+                            }
+                            yield values;
+                        }
+                        case "set" -> {
+                            redis.put(string((byte[]) args[0]), (byte[]) args[1]);
+                            yield Boolean.TRUE;
+                        }
+                        case "hGetAll" -> Map.of();
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private static String string(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
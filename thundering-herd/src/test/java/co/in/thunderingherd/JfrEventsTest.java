@@ -0,0 +1,50 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.core.SingleFlight;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JFR Event Tests")
+class JfrEventsTest {
+
+    private static final String SINGLE_FLIGHT_EVENT = "co.in.thunderingherd.SingleFlight";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should record single-flight events only when a recording enables them")
+    void testSingleFlightEvents() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        Path file = tempDir.resolve("herd.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.start();
+            singleFlight.execute("product:disabled", () -> "value");
+            recording.enable(SINGLE_FLIGHT_EVENT).withoutThreshold();
+            singleFlight.execute("product:enabled", () -> "value");
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(SINGLE_FLIGHT_EVENT))
+                .toList();
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("product", event.getString("namespace"));
+        assertEquals("product:enabled", event.getString("key"));
+        assertEquals("leader", event.getString("role"));
+        assertEquals("success", event.getString("outcome"));
+    }
+}
@@ -0,0 +1,28 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.service.LoadTestService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LoadTestService Tests")
+class LoadTestServiceTest {
+
+    @Test
+    @DisplayName("Concurrency above the worker pool is rejected instead of silently queued")
+    void testConcurrencyAbovePoolIsRejected() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getBenchmark().setMaxConcurrency(4);
+        LoadTestService loadTestService = new LoadTestService(properties);
+
+        assertThrows(IllegalArgumentException.class, () -> loadTestService.runRecorded(5, 10, index -> {}));
+        assertThrows(IllegalArgumentException.class, () -> loadTestService.simulateConcurrentRequests(5, () -> 1));
+        assertThrows(IllegalArgumentException.class, () -> loadTestService.runRecorded(0, 10, index -> {}));
+
+        LoadTestService.RecordedRun run = loadTestService.runRecorded(4, 10, index -> {});
+        assertEquals(10, run.histogram().count());
+        assertEquals(4, loadTestService.simulateConcurrentRequests(4, () -> 1).size());
+    }
+}
@@ -0,0 +1,77 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.LoaderRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LoaderRetry Tests")
+class LoaderRetryTest {
+
+    private SimpleMeterRegistry registry;
+    private LoaderRetry retry;
+    private AtomicInteger attempts;
+
+    @BeforeEach
+    void setUp() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getRetry().setBaseDelayMs(1);
+        properties.getRetry().setMaxDelayMs(5);
+        properties.getRetry().setBudgetPerKey(2);
+        registry = new SimpleMeterRegistry();
+        retry = new LoaderRetry(properties, registry);
+        attempts = new AtomicInteger();
+    }
+
+    private double count(String result) {
+        return registry.get("cache.loader.retries").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should retry transient failures, even when wrapped, until the loader succeeds")
+    void testRetriesTransientFailures() {
+        String value = retry.call("product:A", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new RuntimeException(new TransientDataAccessResourceException("connection reset"));
+            }
+            return "loaded";
+        });
+
+        assertEquals("loaded", value);
+        assertEquals(3, attempts.get());
+        assertEquals(2, count("retried"));
+    }
+
+    @Test
+    @DisplayName("Should not retry other failures and should stop once the key's budget is spent")
+    void testClassifierAndBudget() {
+        assertThrows(IllegalArgumentException.class, () -> retry.call("product:B", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("bad sku");
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(1, count("not_retried"));
+
+        // max-attempts 3 spends both budgeted retries, so the next load of the key fails at once
+        assertThrows(TransientDataAccessResourceException.class, () -> retry.call("product:C", () -> {
+            attempts.incrementAndGet();
+            throw new TransientDataAccessResourceException("down");
+        }));
+        assertEquals(4, attempts.get());
+        assertEquals(1, count("exhausted"));
+
+        assertThrows(TransientDataAccessResourceException.class, () -> retry.call("product:C", () -> {
+            attempts.incrementAndGet();
+            throw new TransientDataAccessResourceException("down");
+        }));
+        assertEquals(5, attempts.get());
+        assertEquals(1, count("budget_exhausted"));
+    }
+}
@@ -0,0 +1,157 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.LocalCacheTier;
+import io.lettuce.core.KillArgs;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.data.redis.autoconfigure.DataRedisConnectionDetails;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DisplayName("Local tier with Redis client tracking")
+class LocalCacheTrackingTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private RedisClient client;
+    private StatefulRedisConnection<String, String> connection;
+    private RedisCommands<String, String> commands;
+    private LocalCacheTier tier;
+
+    @BeforeEach
+    void setUp() {
+        client = RedisClient.create("redis://" + redis.getHost() + ":" + redis.getFirstMappedPort());
+        connection = client.connect();
+        commands = connection.sync();
+        commands.flushall();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (tier != null) {
+            tier.destroy();
+        }
+        connection.close();
+        client.shutdown();
+    }
+
+    @Test
+    @DisplayName("Broadcast mode evicts writes under the prefix and keeps nothing else")
+    void testBroadcastInvalidation() {
+        tier = tier(ThunderingHerdProperties.LocalCacheConfig.Tracking.BCAST);
+        commands.set("product:1", "v1");
+
+        tier.putRead("product:1", bytes("v1"), tier.stamp());
+        tier.putRead("order:1", bytes("v1"), tier.stamp());
+        assertNotNull(tier.get("product:1"));
+        assertNull(tier.get("order:1"), "Keys outside the tracked prefixes would never be invalidated");
+
+        commands.set("product:1", "v2");
+        await().atMost(Duration.ofSeconds(5)).until(() -> tier.get("product:1") == null);
+    }
+
+    @Test
+    @DisplayName("Default mode evicts keys read through the tracked connection")
+    void testDefaultInvalidation() {
+        tier = tier(ThunderingHerdProperties.LocalCacheConfig.Tracking.DEFAULT);
+        commands.set("order:1", "v1");
+        assertTrue(tier.tracksReads());
+
+        long stamp = tier.stamp();
+        byte[] raw = tier.readTracked(bytes("order:1"));
+        tier.putRead("order:1", raw, stamp);
+        assertArrayEquals(bytes("v1"), tier.get("order:1"));
+
+        commands.del("order:1");
+        await().atMost(Duration.ofSeconds(5)).until(() -> tier.get("order:1") == null);
+    }
+
+    @Test
+    @DisplayName("A read overtaken by an invalidation is not kept")
+    void testStaleReadDropped() {
+        tier = tier(ThunderingHerdProperties.LocalCacheConfig.Tracking.BCAST);
+        long stamp = tier.stamp();
+
+        commands.set("product:2", "v2");
+        await().atMost(Duration.ofSeconds(5)).until(() -> tier.stamp() != stamp);
+        tier.putRead("product:2", bytes("v1"), stamp);
+
+        assertNull(tier.get("product:2"));
+    }
+
+    @Test
+    @DisplayName("An unreachable Redis leaves tracking off without failing construction")
+    void testUnreachableRedis() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getLocalCache().setEnabled(true);
+        properties.getLocalCache().setTracking(ThunderingHerdProperties.LocalCacheConfig.Tracking.BCAST);
+        tier = new LocalCacheTier(properties, new DataRedisConnectionDetails() {
+            @Override
+            public Standalone getStandalone() {
+                return Standalone.of("localhost", 1);
+            }
+        });
+
+        assertFalse(tier.isTracking());
+        tier.putRead("product:4", bytes("v1"), tier.stamp());
+        assertNull(tier.get("product:4"));
+    }
+
+    @Test
+    @DisplayName("Losing the tracking connection flushes the tier until tracking resumes")
+    void testConnectionLossFlushes() {
+        tier = tier(ThunderingHerdProperties.LocalCacheConfig.Tracking.BCAST);
+        tier.putRead("product:3", bytes("v1"), tier.stamp());
+        assertNotNull(tier.get("product:3"));
+
+        commands.clientKill(KillArgs.Builder.typeNormal().skipme());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> tier.get("product:3") == null);
+        await().atMost(Duration.ofSeconds(10)).until(tier::isTracking);
+        assertNull(tier.get("product:3"));
+
+        tier.putRead("product:3", bytes("v2"), tier.stamp());
+        commands.set("product:3", "v3");
+        await().atMost(Duration.ofSeconds(5)).until(() -> tier.get("product:3") == null);
+    }
+
+    private LocalCacheTier tier(ThunderingHerdProperties.LocalCacheConfig.Tracking mode) {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getLocalCache().setEnabled(true);
+        properties.getLocalCache().setCapacityMb(16);
+        properties.getLocalCache().setTtlSeconds(300);
+        properties.getLocalCache().setTracking(mode);
+
+        DataRedisConnectionDetails connectionDetails = new DataRedisConnectionDetails() {
+            @Override
+            public Standalone getStandalone() {
+                return Standalone.of(redis.getHost(), redis.getFirstMappedPort());
+            }
+        };
+        LocalCacheTier tier = new LocalCacheTier(properties, connectionDetails);
+        // The tracking connection is opened in the background
+        await().atMost(Duration.ofSeconds(10)).until(tier::isTracking);
+        return tier;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
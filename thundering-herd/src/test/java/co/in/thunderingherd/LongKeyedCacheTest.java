@@ -0,0 +1,133 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.core.LongKeyedCache;
+import co.in.thunderingherd.core.LongSingleFlight;
+import co.in.thunderingherd.core.SingleFlightListener;
+import co.in.thunderingherd.core.SingleFlightRejectedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LongKeyedCache Tests")
+class LongKeyedCacheTest {
+
+    @Test
+    @DisplayName("Should load each id once under concurrent misses and cache unknown ids")
+    void testCoalescedLoads() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        LongKeyedCache<String> cache = new LongKeyedCache<>(id -> {
+            loads.incrementAndGet();
+            sleep(100);
+            return id < 0 ? null : "product-" + id;
+        }, 1000, 60_000, 60_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> cache.get(7)));
+            }
+            for (Future<String> result : results) {
+                assertEquals("product-7", result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+
+        assertNull(cache.get(-1));
+        assertNull(cache.get(-1));
+        assertEquals(2, loads.get());
+
+        cache.invalidate(7);
+        assertEquals("product-7", cache.get(7));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should stay within the entry cap and keep serving correct values")
+    void testEviction() throws Exception {
+        LongKeyedCache<Long> cache = new LongKeyedCache<>(id -> id * 2, 1024, 60_000, 60_000);
+
+        for (long id = 0; id < 100_000; id++) {
+            assertEquals(id * 2, cache.get(id));
+        }
+        assertTrue(cache.size() <= 1024, "size " + cache.size());
+        assertEquals(42L, cache.get(21));
+    }
+
+    @Test
+    @DisplayName("Misses are admitted within the single-flight limits and reported to listeners")
+    void testAdmissionLimitsAndListener() throws Exception {
+        LongSingleFlight singleFlight = new LongSingleFlight("product-id:", 1, 1);
+        List<String> events = new ArrayList<>();
+        singleFlight.addListener(new SingleFlightListener() {
+            @Override
+            public synchronized void onLeaderComplete(String key, long durationNanos, int followers, Outcome outcome) {
+                events.add("leader " + key + " " + followers);
+            }
+
+            @Override
+            public synchronized void onRejected(String key, SingleFlightRejectedException.Reason reason) {
+                events.add("rejected " + key + " " + reason.tagValue());
+            }
+        });
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LongKeyedCache<String> cache = new LongKeyedCache<>(id -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "product-" + id;
+        }, 1000, 60_000, 60_000, singleFlight);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> cache.get(7));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> cache.get(7));
+            while (singleFlight.getMetrics().deduplications() == 0) {
+                sleep(5);
+            }
+
+            SingleFlightRejectedException waiters = assertThrows(SingleFlightRejectedException.class, () -> cache.get(7));
+            assertEquals(SingleFlightRejectedException.Reason.WAITERS, waiters.getReason());
+            SingleFlightRejectedException keys = assertThrows(SingleFlightRejectedException.class, () -> cache.get(8));
+            assertEquals("product-id:8", keys.getKey());
+            assertEquals(SingleFlightRejectedException.Reason.IN_FLIGHT_KEYS, keys.getReason());
+
+            release.countDown();
+            assertEquals("product-7", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("product-7", follower.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("product-8", cache.get(8));
+        assertEquals(2, singleFlight.rejectionCount());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertTrue(events.contains("rejected product-id:7 waiters"));
+        assertTrue(events.contains("leader product-id:7 1"));
+        assertTrue(events.contains("leader product-id:8 0"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.core.CacheKey;
+import co.in.thunderingherd.core.NamespaceGenerations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NamespaceGenerations Tests")
+class NamespaceGenerationsTest {
+
+    private NamespaceGenerations generations;
+
+    @BeforeEach
+    void setUp() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getCache().setGenerationRefreshMs(3_600_000);
+        generations = new NamespaceGenerations(new CountingTemplate(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        generations.destroy();
+    }
+
+    @Test
+    @DisplayName("A bumped key never equals the generation 0 key of another id")
+    void testNoCollisionAcrossGenerations() {
+        String plainBefore = generations.keyFor("product:A#1");
+        String hashBefore = generations.keyFor("product:#1:A");
+        assertEquals("product:A", generations.keyFor("product:A"));
+        assertEquals("product:#0:A#1", plainBefore);
+
+        generations.bump("product");
+
+        String bumped = generations.keyFor("product:A");
+        assertEquals("product:#1:A", bumped);
+        assertNotEquals(plainBefore, bumped);
+        assertNotEquals(hashBefore, bumped);
+        assertNotEquals(bumped, generations.keyFor("product:#1:A"));
+        assertEquals("#1:#0:A", generations.keyFor("#1:A"), "Keys containing the separator are always mapped");
+    }
+
+    @Test
+    @DisplayName("A reused key maps without building a new key until the generation changes")
+    void testMappedKeyReused() {
+        CacheKey key = CacheKey.of("product:", "B");
+        assertSame(key, generations.keyFor(key));
+
+        generations.bump("product");
+        CacheKey first = generations.keyFor(key);
+        assertEquals("product:#1:B", first.name());
+        assertSame(first, generations.keyFor(key));
+
+        generations.bump("product");
+        assertEquals("product:#2:B", generations.keyFor(key).name());
+    }
+
+    /**
+     * Answers the initial generation read with nothing and every HINCRBY with the next value.
+     */
+    private static final class CountingTemplate extends RedisTemplate<String, Object> {
+
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisCallback<T> action) {
+            return reads.getAndIncrement() == 0 ? null : (T) Long.valueOf(value.incrementAndGet());
+        }
+    }
+}
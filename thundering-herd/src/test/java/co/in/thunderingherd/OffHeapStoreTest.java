@@ -0,0 +1,55 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.core.OffHeapStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OffHeapStore Tests")
+class OffHeapStoreTest {
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should store, overwrite, remove and expire entries")
+    void testBasicOperations() throws Exception {
+        OffHeapStore store = new OffHeapStore(4L << 20, 10_000, 4);
+
+        assertTrue(store.put("product:A", bytes("one"), 60_000));
+        assertTrue(store.put("product:A", bytes("two"), 60_000));
+        assertArrayEquals(bytes("two"), store.get("product:A"));
+        assertEquals(1, store.size());
+
+        assertTrue(store.remove("product:A"));
+        assertNull(store.get("product:A"));
+        assertFalse(store.remove("product:A"));
+
+        store.put("product:B", bytes("short-lived"), 1);
+        Thread.sleep(5);
+        assertNull(store.get("product:B"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest entries to stay within the entry and memory caps")
+    void testEviction() {
+        OffHeapStore store = new OffHeapStore(1L << 20, 1_000, 1);
+        byte[] value = new byte[200];
+
+        for (int i = 0; i < 20_000; i++) {
+            store.put("key:" + i, value, 60_000);
+        }
+
+        assertTrue(store.size() <= 1_000);
+        assertTrue(store.usedBytes() <= store.capacityBytes());
+        assertTrue(store.evictions() > 0);
+        assertNotNull(store.get("key:19999"), "Newest entry should survive");
+        assertNull(store.get("key:0"), "Oldest entry should be evicted");
+        assertFalse(store.put("huge", new byte[(int) store.capacityBytes()], 60_000));
+    }
+}
@@ -0,0 +1,105 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.core.ReactiveSingleFlight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReactiveSingleFlight Tests")
+class ReactiveSingleFlightTest {
+
+    private ReactiveSingleFlight singleFlight;
+    private AtomicInteger executionCount;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new ReactiveSingleFlight();
+        executionCount = new AtomicInteger();
+    }
+
+    private Mono<String> slowLoad(String value) {
+        return Mono.fromCallable(() -> {
+            executionCount.incrementAndGet();
+            return value;
+        }).delayElement(Duration.ofMillis(100));
+    }
+
+    @Test
+    @DisplayName("Should share one execution among concurrent subscribers")
+    void testConcurrentSubscribersShareExecution() {
+        int concurrency = 50;
+        List<Mono<String>> calls = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            calls.add(singleFlight.execute("key", () -> slowLoad("result")));
+        }
+
+        List<String> results = Flux.merge(calls).collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(results);
+        assertEquals(concurrency, results.size());
+        assertTrue(results.stream().allMatch("result"::equals));
+        assertEquals(1, executionCount.get());
+        assertEquals(concurrency - 1, singleFlight.getMetrics().deduplications());
+        await().atMost(Duration.ofSeconds(1)).until(() -> singleFlight.inFlightCount() == 0);
+    }
+
+    @Test
+    @DisplayName("Should report exactly one leader among concurrent subscribers")
+    void testLeadershipIsReported() {
+        AtomicInteger leaders = new AtomicInteger();
+        AtomicInteger followers = new AtomicInteger();
+        List<Mono<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(singleFlight.execute("key", () -> slowLoad("result"), Duration.ofSeconds(5),
+                    leader -> (leader ? leaders : followers).incrementAndGet()));
+        }
+
+        Flux.merge(calls).collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(1, leaders.get());
+        assertEquals(19, followers.get());
+        assertEquals(1, executionCount.get());
+    }
+
+    @Test
+    @DisplayName("Should start a fresh execution once the previous one completed")
+    void testSequentialCallsExecuteAgain() {
+        assertEquals("first", singleFlight.execute("key", () -> slowLoad("first")).block());
+        await().atMost(Duration.ofSeconds(1)).until(() -> singleFlight.inFlightCount() == 0);
+        assertEquals("second", singleFlight.execute("key", () -> slowLoad("second")).block());
+
+        assertEquals(2, executionCount.get());
+    }
+
+    @Test
+    @DisplayName("Should propagate the leader's error to every subscriber")
+    void testErrorPropagation() {
+        Mono<String> failing = Mono.<String>error(new IllegalStateException("boom"))
+                .delaySubscription(Duration.ofMillis(50));
+        Mono<String> first = singleFlight.execute("key", () -> failing);
+        Mono<String> second = singleFlight.execute("key", () -> failing);
+
+        List<Throwable> errors = new ArrayList<>();
+        Flux.merge(first.onErrorResume(e -> {
+                    errors.add(e);
+                    return Mono.empty();
+                }), second.onErrorResume(e -> {
+                    errors.add(e);
+                    return Mono.empty();
+                }))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(2, errors.size());
+        assertEquals(1, singleFlight.getMetrics().executions());
+    }
+}
@@ -0,0 +1,32 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.core.RenderedBody;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RenderedBody Tests")
+class RenderedBodyTest {
+
+    @Test
+    @DisplayName("Should write exactly the rendered bytes with a content-derived ETag")
+    void testWriteAndEtag() throws Exception {
+        byte[] json = "{\"sku\":\"DEMO-001\"}".getBytes(StandardCharsets.UTF_8);
+        RenderedBody body = RenderedBody.of(json);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        assertArrayEquals(json, out.toByteArray());
+        assertEquals(json.length, body.length());
+        assertEquals(json.length, body.asByteBuffer().remaining());
+        assertTrue(body.etag().startsWith("\"") && body.etag().endsWith("\""));
+        assertEquals(body.etag(), RenderedBody.of(json.clone()).etag());
+        assertNotEquals(body.etag(), RenderedBody.of("{}".getBytes(StandardCharsets.UTF_8)).etag());
+        assertFalse(body.isNegative());
+    }
+}
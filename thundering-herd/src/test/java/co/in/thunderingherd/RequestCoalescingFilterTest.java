@@ -0,0 +1,176 @@
+package co.in.thunderingherd;
+
+import co.in.thunderingherd.config.ThunderingHerdProperties;
+import co.in.thunderingherd.filter.RequestCoalescingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RequestCoalescingFilter Tests")
+class RequestCoalescingFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescingFilter filter;
+    private AtomicInteger handlerCalls;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        ThunderingHerdProperties properties = new ThunderingHerdProperties();
+        properties.getCoalescing().setPaths(List.of("/demo/product/*"));
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestCoalescingFilter(properties, meterRegistry);
+        handlerCalls = new AtomicInteger();
+        release = new CountDownLatch(1);
+    }
+
+    private final FilterChain slowHandler = (request, response) -> {
+        handlerCalls.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        response.setContentType("application/json");
+        response.getOutputStream().write("{\"sku\":\"SKU-1\"}".getBytes(StandardCharsets.UTF_8));
+    };
+
+    private MockHttpServletResponse get(String uri) throws Exception {
+        return get(uri, slowHandler);
+    }
+
+    private MockHttpServletResponse get(String uri, FilterChain handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRequestURI(uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, handler);
+        return response;
+    }
+
+    private MockHttpServletResponse get(String uri, String... parameters) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRequestURI(uri);
+        for (int i = 0; i < parameters.length; i += 2) {
+            request.addParameter(parameters[i], parameters[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, slowHandler);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should run the handler once and replay its response to identical requests")
+    void testIdenticalRequestsShareOneResponse() throws Exception {
+        int concurrency = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> get("/demo/product/SKU-1")));
+        await().atMost(Duration.ofSeconds(5)).until(() -> handlerCalls.get() == 1);
+
+        for (int i = 1; i < concurrency; i++) {
+            futures.add(executor.submit(() -> get("/demo/product/SKU-1")));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> filter.waiterCount() == concurrency - 1);
+        release.countDown();
+
+        for (Future<MockHttpServletResponse> future : futures) {
+            MockHttpServletResponse response = future.get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.getStatus());
+            assertEquals("application/json", response.getContentType());
+            assertEquals("{\"sku\":\"SKU-1\"}", response.getContentAsString());
+        }
+        executor.shutdown();
+
+        assertEquals(1, handlerCalls.get());
+        assertEquals(concurrency - 1,
+                meterRegistry.get("http.coalescing.requests").tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should not replay a leader's error response; waiters run the request themselves")
+    void testErrorResponsesAreNotShared() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FilterChain failing = (request, response) -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ((HttpServletResponse) response).setStatus(503);
+                return;
+            }
+            response.getOutputStream().write("ok".getBytes(StandardCharsets.UTF_8));
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<MockHttpServletResponse> leader = executor.submit(() -> get("/demo/product/SKU-1", failing));
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+        Future<MockHttpServletResponse> waiter = executor.submit(() -> get("/demo/product/SKU-1", failing));
+        await().atMost(Duration.ofSeconds(5)).until(() -> filter.waiterCount() == 1);
+        release.countDown();
+
+        assertEquals(503, leader.get(5, TimeUnit.SECONDS).getStatus());
+        MockHttpServletResponse retried = waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(200, retried.getStatus());
+        assertEquals("ok", retried.getContentAsString());
+        executor.shutdown();
+
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("http.coalescing.requests").tag("result", "unreplayable").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep the order of repeated parameter values in the key, but not of names")
+    void testParameterOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Future<MockHttpServletResponse> leader = executor.submit(() -> get("/demo/product/SKU-1", "id", "2", "id", "1"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> handlerCalls.get() == 1);
+        Future<MockHttpServletResponse> reordered = executor.submit(() -> get("/demo/product/SKU-1", "id", "1", "id", "2"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> handlerCalls.get() == 2);
+        Future<MockHttpServletResponse> sameValues = executor.submit(
+                () -> get("/demo/product/SKU-1", "v", "x", "id", "2", "id", "1"));
+        Future<MockHttpServletResponse> namesSwapped = executor.submit(
+                () -> get("/demo/product/SKU-1", "id", "2", "id", "1", "v", "x"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> handlerCalls.get() == 3 && filter.waiterCount() == 1);
+        release.countDown();
+
+        for (Future<MockHttpServletResponse> future : List.of(leader, reordered, sameValues, namesSwapped)) {
+            assertEquals(200, future.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        executor.shutdown();
+        assertEquals(3, handlerCalls.get());
+    }
+
+    @Test
+    @DisplayName("Should not coalesce conditional requests or routes that are not listed")
+    void testBypass() throws Exception {
+        release.countDown();
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/demo/product/SKU-1");
+        conditional.addHeader("If-None-Match", "\"abc\"");
+        filter.doFilter(conditional, new MockHttpServletResponse(), slowHandler);
+        get("/demo/health");
+
+        assertEquals(2, handlerCalls.get());
+        assertEquals(0, meterRegistry.get("http.coalescing.requests").tag("result", "leader").counter().count());
+    }
+}
@@ -1,14 +1,19 @@
 package co.in.thunderingherd;
 
 import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.core.SingleFlightListener;
+import co.in.thunderingherd.core.SingleFlightRejectedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -105,4 +110,229 @@ class SingleFlightTest {
             });
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should report leader fan-in and follower waits to listeners")
+    void testListenerFanIn() throws Exception {
+        int concurrency = 20;
+        AtomicInteger fanin = new AtomicInteger(-1);
+        AtomicInteger followerWaits = new AtomicInteger();
+        AtomicLong leaderNanos = new AtomicLong();
+        singleFlight.addListener(new SingleFlightListener() {
+            @Override
+            public void onLeaderComplete(String key, long durationNanos, int followers, Outcome outcome) {
+                fanin.set(followers);
+                leaderNanos.set(durationNanos);
+            }
+
+            @Override
+            public void onFollowerComplete(String key, long waitNanos, Outcome outcome) {
+                followerWaits.incrementAndGet();
+            }
+        });
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(() -> {
+                startLatch.await();
+                return singleFlight.execute("fanin-key", () -> {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return "result";
+                });
+            }));
+        }
+        startLatch.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("result", future.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(concurrency - 1, fanin.get());
+        assertEquals(concurrency - 1, followerWaits.get());
+        assertTrue(leaderNanos.get() >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Bulk execution should join keys already in flight and load only the rest")
+    void testExecuteAllJoinsInFlightKeys() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> single = executor.submit(() -> singleFlight.execute("bulk:a", () -> {
+            leaderStarted.countDown();
+            try {
+                releaseLeader.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "single-a";
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        List<List<String>> loadedKeys = new ArrayList<>();
+        Map<String, String> results = new LinkedHashMap<>();
+        singleFlight.executeAll(List.of("bulk:a", "bulk:b", "bulk:c"), keys -> {
+            loadedKeys.add(keys);
+            releaseLeader.countDown();
+            return Map.of("bulk:b", "bulk-b");
+        }, 5000, results::put);
+
+        assertEquals("single-a", single.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(List.of(List.of("bulk:b", "bulk:c")), loadedKeys);
+        assertEquals(List.of("bulk:b", "bulk:c", "bulk:a"), new ArrayList<>(results.keySet()));
+        assertEquals("single-a", results.get("bulk:a"));
+        assertEquals("bulk-b", results.get("bulk:b"));
+        assertNull(results.get("bulk:c"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should reject callers over the waiter and in-flight key limits without waiting")
+    void testAdmissionLimits() throws Exception {
+        SingleFlight bounded = new SingleFlight(1, 1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> bounded.execute("limit:a", () -> {
+            leaderStarted.countDown();
+            try {
+                releaseLeader.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "a";
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // Takes the only waiter slot, which it keeps after timing out
+        assertThrows(RuntimeException.class, () -> bounded.execute("limit:a", () -> "unused", 10));
+        SingleFlightRejectedException waiters = assertThrows(SingleFlightRejectedException.class,
+                () -> bounded.execute("limit:a", () -> "unused"));
+        assertEquals(SingleFlightRejectedException.Reason.WAITERS, waiters.getReason());
+
+        SingleFlightRejectedException keys = assertThrows(SingleFlightRejectedException.class,
+                () -> bounded.execute("limit:b", () -> "b"));
+        assertEquals(SingleFlightRejectedException.Reason.IN_FLIGHT_KEYS, keys.getReason());
+
+        releaseLeader.countDown();
+        assertEquals("a", leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(2, bounded.rejectionCount());
+        assertEquals("b", bounded.execute("limit:b", () -> "b"));
+    }
+
+    @Test
+    @DisplayName("Should fail fast when a leader calls back into its own key, and load duplicate bulk keys once")
+    void testReentrantAndDuplicateKeys() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        IllegalStateException reentrant = assertThrows(IllegalStateException.class,
+                () -> singleFlight.execute("self", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        return singleFlight.execute("self", () -> "inner");
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+        assertTrue(reentrant.getMessage().contains("self"));
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+
+        List<List<String>> loadedKeys = new ArrayList<>();
+        Map<String, String> results = new LinkedHashMap<>();
+        singleFlight.resetMetrics();
+        singleFlight.executeAll(List.of("dup:a", "dup:b", "dup:a"), keys -> {
+            loadedKeys.add(keys);
+            return Map.of("dup:a", "a", "dup:b", "b");
+        }, 5000, results::put);
+
+        assertEquals(List.of(List.of("dup:a", "dup:b")), loadedKeys);
+        assertEquals(Map.of("dup:a", "a", "dup:b", "b"), results);
+        assertEquals(2, singleFlight.getMetrics().executions());
+        assertEquals(0, singleFlight.getMetrics().deduplications());
+    }
+
+    @Test
+    @DisplayName("Should never run more keys than the in-flight limit, however many callers race for it")
+    void testInFlightLimitIsExact() throws Exception {
+        int limit = 4;
+        SingleFlight bounded = new SingleFlight(Integer.MAX_VALUE, limit);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            String key = "race:" + i;
+            futures.add(executor.submit(() -> {
+                try {
+                    return bounded.execute(key, () -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        running.decrementAndGet();
+                        return key;
+                    });
+                } catch (SingleFlightRejectedException e) {
+                    return null;
+                }
+            }));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(maxRunning.get() <= limit, "Ran " + maxRunning.get() + " keys at once");
+        assertEquals(0, bounded.inFlightCount());
+        assertEquals("after", bounded.execute("race:after", () -> "after"));
+    }
+
+    @Test
+    @DisplayName("Should share a finished result with callers arriving inside the linger window")
+    void testLingerWindow() throws Exception {
+        SingleFlight lingering = new SingleFlight(Integer.MAX_VALUE, Integer.MAX_VALUE, 200, 2);
+
+        assertEquals("v1", lingering.execute("linger:a", () -> "v" + executionCount.incrementAndGet()));
+        assertEquals("v1", lingering.execute("linger:a", () -> "v" + executionCount.incrementAndGet()));
+        assertEquals(1, executionCount.get());
+        assertEquals(1, lingering.lingerHitCount());
+
+        // Failures are not kept
+        assertThrows(IllegalStateException.class, () -> lingering.execute("linger:b", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("b", lingering.execute("linger:b", () -> "b"));
+
+        // A third key takes the oldest slot
+        lingering.execute("linger:c", () -> "c");
+        assertEquals(2, lingering.lingeringCount());
+        assertEquals("v2", lingering.execute("linger:a", () -> "v" + executionCount.incrementAndGet()));
+
+        Thread.sleep(250);
+        assertEquals("v3", lingering.execute("linger:a", () -> "v" + executionCount.incrementAndGet()));
+
+        // An invalidated key is never served from the window
+        lingering.forget("linger:a");
+        assertEquals("v4", lingering.execute("linger:a", () -> "v" + executionCount.incrementAndGet()));
+        lingering.forgetAll();
+        assertEquals(0, lingering.lingeringCount());
+    }
+}
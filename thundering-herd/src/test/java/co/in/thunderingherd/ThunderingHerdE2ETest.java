@@ -2,6 +2,7 @@ package co.in.thunderingherd;
 
 
 import co.in.thunderingherd.core.SingleFlight;
+import co.in.thunderingherd.model.Product;
 import co.in.thunderingherd.service.DatabaseService;
 import co.in.thunderingherd.service.LoadTestService;
 import co.in.thunderingherd.service.ProductService;
@@ -17,6 +18,10 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -409,4 +414,44 @@ class ThunderingHerdE2ETest {
         assertTrue(totalQueries < totalRequests / 10,
                 "Queries should be <10% of total requests");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Batch: one bulk query for misses, negative entries for unknown SKUs")
+    void testBatchLookup() throws Exception {
+        List<String> skus = List.of("DEMO-001", "DEMO-002", "DEMO-003", "NOPE-404");
+        skus.forEach(productService::evictProduct);
+        databaseService.resetQueryCount();
+
+        Map<String, Boolean> found = new LinkedHashMap<>();
+        productService.streamProductsJson(skus, (sku, body) -> found.put(sku, body.isPresent()));
+
+        assertEquals(1, databaseService.getQueryCount(), "Misses should be loaded with one bulk query");
+        assertEquals(Map.of("DEMO-001", true, "DEMO-002", true, "DEMO-003", true, "NOPE-404", false), found);
+
+        found.clear();
+        productService.streamProductsJson(skus, (sku, body) -> found.put(sku, body.isPresent()));
+
+        assertEquals(1, databaseService.getQueryCount(), "Second batch should be served entirely from cache");
+        assertFalse(found.get("NOPE-404"));
+    }
+
+    @Test
+    @DisplayName("@HerdCacheable bulk: cached SKUs are skipped, misses loaded in one call")
+    void testAnnotatedBulkLookup() throws Exception {
+        List<String> skus = List.of("DEMO-001", "DEMO-002", "DEMO-003", "NOPE-404");
+        skus.forEach(productService::evictProduct);
+        productService.getProductFull("DEMO-001");
+        databaseService.resetQueryCount();
+
+        Map<String, Product> products = productService.getProducts(skus);
+
+        assertEquals(1, databaseService.getQueryCount(), "Only the misses should be queried, once");
+        assertEquals(List.of("DEMO-001", "DEMO-002", "DEMO-003"), List.copyOf(products.keySet()));
+        assertEquals("DEMO-002", products.get("DEMO-002").getSku());
+
+        assertEquals(products.keySet(), productService.getProducts(skus).keySet());
+        assertEquals(1, databaseService.getQueryCount(), "Second call should be served entirely from cache");
+        assertTrue(productService.getProductFull("NOPE-404").isEmpty());
+        assertEquals(1, databaseService.getQueryCount(), "Unknown SKU should be negatively cached");
+    }
+}